@@ -0,0 +1,553 @@
+package de.toem.impulse.extension.log.common;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.List;
+
+import de.toem.impulse.cells.record.IRecord;
+import de.toem.impulse.samples.IEventSamplesWriter;
+import de.toem.impulse.samples.ISample;
+import de.toem.impulse.samples.ISamples;
+import de.toem.impulse.usecase.logging.AbstractLogReader;
+import de.toem.impulse.usecase.logging.Log;
+import de.toem.impulse.usecase.logging.LogWriter;
+import de.toem.toolkits.core.Utils;
+import de.toem.toolkits.pattern.element.serializer.ISerializerDescriptor;
+import de.toem.toolkits.pattern.properties.PropertyModel;
+import de.toem.toolkits.pattern.threading.IProgress;
+import de.toem.toolkits.utils.serializer.ParseException;
+
+/**
+ * Base class of the pattern, XML, JSON and YAML log readers with the shared
+ * message write pipeline.
+ *
+ * The readers parse their content into log messages and hand every completed
+ * message to {@link #writeMessage(LogMessage)}. This class runs the stages
+ * between parsing and the framework writers, which are the same for all
+ * formats: name filter, record cache, reorder stage, message templates and
+ * progressive import.
+ *
+ * Key features:
+ * - Name filter ("nameInclude"/"nameExclude") before member extraction
+ * - Record cache that replays the parsed messages of unchanged files
+ * - Bounded reorder stage that writes messages in position order per signal
+ * - Message template mining on the message member
+ * - Progressive import (first screen, then batches with lower priority)
+ * - Reader-specific values that travel with a message (extras), e.g. the
+ *   values of extraction rules, through the record cache and the reorder stage
+ *
+ * Implementation notes:
+ * - The stages are created per import by {@link #initPipeline()}; the
+ *   reader decides when to open and close the record cache.
+ * - Subclasses provide the message member index and the configuration hash
+ *   of their option parsers.
+ *
+ * Copyright (c) 2013-2025 Thomas Haber
+ * All rights reserved.
+ *
+ */
+public abstract class AbstractPipelineLogReader extends AbstractLogReader {
+
+    // Default name of the template signal
+    public static final String DEFAULT_TEMPLATE_SIGNAL = "Templates";
+
+    // ========================================================================================================================
+    // Members
+    // ========================================================================================================================
+
+    // Content name (used to identify the content caches)
+    protected String contentName;
+    // Hash of reader type, configuration and properties
+    protected long configurationHash;
+    // Message template encoder (null if disabled)
+    protected MessageTemplates templates;
+    // Filter on message names (null if none)
+    protected NameFilter nameFilter;
+    // Reorder stage in front of the writers (null if disabled)
+    protected ReorderBuffer<BufferedMessage> reorder;
+    // Recycled messages of the reorder stage
+    protected List<BufferedMessage> freeMessages;
+    // Progressive import schedule (null if disabled)
+    protected ProgressiveLoad progressive;
+    // Record cache (null if disabled)
+    protected LogRecordCache recordCache;
+    // Parsers in option order (used to reference parsers in the record cache)
+    protected AbstractOptionParser[] recordParsers;
+
+    // ========================================================================================================================
+    // Constructor
+    // ========================================================================================================================
+
+    /**
+     * Default constructor.
+     */
+    public AbstractPipelineLogReader() {
+        super();
+    }
+
+    /**
+     * Constructs an AbstractPipelineLogReader.
+     *
+     * @param descriptor the serializer descriptor
+     * @param contentName the content name
+     * @param configuration the configuration
+     * @param properties the properties
+     * @param model the property model of the reader
+     * @param in the input stream
+     */
+    public AbstractPipelineLogReader(ISerializerDescriptor descriptor, String contentName, String configuration, String[][] properties, PropertyModel model,
+            InputStream in) {
+        super(descriptor, configuration, properties, model, in);
+        this.contentName = contentName;
+        this.configurationHash = LogRecordCache.hash(LogRecordCache.hash(LogRecordCache.hash(0, getClass().getName()), configuration), properties);
+    }
+
+    // ========================================================================================================================
+    // Parse
+    // ========================================================================================================================
+
+    /**
+     * Parses the content with the progressive import schedule (if configured).
+     *
+     * @param progress progress/cancellation interface
+     * @param in input stream to read
+     * @throws ParseException on parsing errors
+     * @throws IOException on IO errors
+     */
+    @Override
+    protected void parseLogs(IProgress progress, InputStream in) throws ParseException, IOException {
+        progressive = createProgressiveLoad(progress);
+        try {
+            parseContent(progress, in);
+        } finally {
+            if (progressive != null)
+                progressive.finish();
+            progressive = null;
+        }
+    }
+
+    /**
+     * Parses the content of the input stream (see {@link #parseLogs(IProgress, InputStream)}).
+     *
+     * @param progress progress/cancellation interface
+     * @param in input stream to read
+     * @throws ParseException on parsing errors
+     * @throws IOException on IO errors
+     */
+    protected abstract void parseContent(IProgress progress, InputStream in) throws ParseException, IOException;
+
+    /**
+     * Returns the value index of the {@link Log#MESSAGE} member of an option parser.
+     *
+     * @param parser the option parser
+     * @return the value index or -1 if none
+     */
+    protected abstract int getMessageIndex(AbstractOptionParser parser);
+
+    /**
+     * Returns the hash of the option configuration of an option parser (record cache key).
+     *
+     * @param parser the option parser
+     * @return the hash
+     */
+    protected abstract long getOptionHash(AbstractOptionParser parser);
+
+    // ========================================================================================================================
+    // Pipeline
+    // ========================================================================================================================
+
+    /**
+     * Creates the message template encoder, the name filter and the reorder stage
+     * of an import.
+     *
+     * @throws ParseException if a name filter expression is invalid
+     */
+    protected void initPipeline() throws ParseException {
+        templates = createMessageTemplates();
+        nameFilter = NameFilter.create(getProperty("nameInclude"), getProperty("nameExclude"));
+        reorder = createReorderBuffer();
+    }
+
+    /**
+     * Writes the given message together with the reader-specific values of the
+     * current message (see {@link #takeExtras()}).
+     *
+     * @param message the message to write
+     * @return the log writer, or null if the message has been dropped or buffered
+     * @throws ParseException on write errors
+     */
+    protected LogWriter writeMessage(LogMessage message) throws ParseException {
+        return writeMessage(message, takeExtras());
+    }
+
+    /**
+     * Writes the given message. Dropped messages (e.g. of excluded names) are
+     * discarded; with the reorder stage enabled, messages and their extras are
+     * buffered per signal and written in position order.
+     *
+     * @param message the message to write
+     * @param extras the reader-specific values of the message (null if none)
+     * @return the log writer, or null if the message has been dropped or buffered
+     * @throws ParseException on write errors
+     */
+    protected LogWriter writeMessage(LogMessage message, Object[] extras) throws ParseException {
+        if (isDropped(message))
+            return null;
+        if (recordCache != null && recordCache.isRecording())
+            recordCache.record(indexOf(message.positionParser), indexOf(message.nameParser), message.position, message.position2, message.name1,
+                    message.name2, message.tag, message.lineNo, message.values, extras);
+        if (reorder != null && message.position != null) {
+            reorder.add(message.name1, message.name2, positionOf(message), copyMessage(message, extras));
+            drainReorder();
+            return null;
+        }
+        return emitMessage(message, extras);
+    }
+
+    /**
+     * Writes the given message into its signal. If message templates are enabled,
+     * the message member is replaced by its template parameters and the template
+     * is written into the template signal (messages whose template cannot be
+     * written keep their text). The extras are written with {@link #writeExtras(LogWriter, Object[])}.
+     *
+     * @param message the message to write
+     * @param extras the reader-specific values of the message (null if none)
+     * @return the log writer or null
+     * @throws ParseException on write errors
+     */
+    protected LogWriter emitMessage(LogMessage message, Object[] extras) throws ParseException {
+        if (templates != null)
+            templates.encode(message.values, messageIndexOf(message), message.position != null ? positionOf(message) : null);
+        LogWriter writer = write(message);
+        if (templates != null && writer != null)
+            templates.write(writer.current);
+        if (extras != null)
+            writeExtras(writer, extras);
+        if (progressive != null && progressive.next(message.position))
+            commitProgressive();
+        return writer;
+    }
+
+    /**
+     * Returns true if the given message is not written. By default, messages of
+     * excluded names are dropped.
+     *
+     * @param message the message
+     * @return true if dropped
+     */
+    protected boolean isDropped(LogMessage message) {
+        return isExcluded(message);
+    }
+
+    /**
+     * Returns the reader-specific values of the current message and resets them
+     * (e.g. the pending values of extraction rules). The values are recorded with
+     * the message and travel with it through the reorder stage.
+     *
+     * @return the values or null if none
+     */
+    protected Object[] takeExtras() {
+        return null;
+    }
+
+    /**
+     * Writes the reader-specific values of a message that has been written.
+     *
+     * @param writer the log writer of the message (null if the message was not written)
+     * @param extras the values
+     * @throws ParseException on write errors
+     */
+    protected void writeExtras(LogWriter writer, Object[] extras) throws ParseException {
+    }
+
+    /**
+     * Returns true if the names of the given message are known and excluded by the
+     * "nameInclude"/"nameExclude" properties. Excluded messages skip member extraction, tag
+     * matching and writing.
+     *
+     * @param message the message
+     * @return true if excluded
+     */
+    protected boolean isExcluded(LogMessage message) {
+        return nameFilter != null && message.nameParser != null && !nameFilter.accepts(message.name1, message.name2);
+    }
+
+    /**
+     * Returns the combined primary and secondary position of a message with position.
+     *
+     * @param message the message
+     * @return the position
+     */
+    protected static long positionOf(LogMessage message) {
+        return message.position + (message.position2 != null ? message.position2 : 0);
+    }
+
+    // ========================================================================================================================
+    // Message Templates
+    // ========================================================================================================================
+
+    /**
+     * Creates the message template encoder if the "messageTemplates" property is set
+     * and at least one option maps a {@link Log#MESSAGE} member. The templates are
+     * written into the signal named by the "templateSignal" property.
+     *
+     * @return the encoder or null
+     */
+    protected MessageTemplates createMessageTemplates() {
+        if (!getTypedProperty("messageTemplates", Boolean.class))
+            return null;
+        boolean mapped = false;
+        for (AbstractOptionParser p : parser)
+            mapped |= getMessageIndex(p) >= 0;
+        if (!mapped)
+            return null;
+        int similarity = Utils.parseInt(getProperty("templateSimilarity"), 50);
+        String name = Utils.trim(getProperty("templateSignal"));
+        IRecord.Signal signal = addSignal(null, Utils.isEmpty(name) ? DEFAULT_TEMPLATE_SIGNAL : name, null, null, ISample.DATA_TYPE_ENUM, -1,
+                ISamples.FORMAT_DEFAULT);
+        return new MessageTemplates(new TemplateMiner(4, similarity / 100.0, 100), (IEventSamplesWriter) getWriter(signal));
+    }
+
+    /**
+     * Returns the value index of the {@link Log#MESSAGE} member of the option that
+     * parsed the given message (name option first, then position option).
+     *
+     * @param message the message
+     * @return the value index or -1 if none
+     */
+    protected int messageIndexOf(LogMessage message) {
+        int index = message.nameParser != null ? getMessageIndex(message.nameParser) : -1;
+        if (index < 0 && message.positionParser != null)
+            index = getMessageIndex(message.positionParser);
+        return index;
+    }
+
+    // ========================================================================================================================
+    // Progressive Import
+    // ========================================================================================================================
+
+    /**
+     * Creates the progressive import schedule if the "firstScreenMessages" or
+     * "firstScreenSpan" property is set.
+     *
+     * @param progress progress/cancellation interface
+     * @return the schedule or null
+     */
+    protected ProgressiveLoad createProgressiveLoad(IProgress progress) {
+        long messages = Utils.parseLong(getProperty("firstScreenMessages"), 0);
+        long span = Utils.parseLong(getProperty("firstScreenSpan"), 0);
+        return messages > 0 || span > 0 ? new ProgressiveLoad(progress, messages, span, ProgressiveLoad.DEFAULT_BATCH) : null;
+    }
+
+    /**
+     * Commits the written samples to the viewer (first screen or next batch).
+     *
+     * @throws ParseException on write errors
+     */
+    protected void commitProgressive() throws ParseException {
+        flushAndSetProgress(progressive.getProgress());
+        changed(CHANGED_SIGNALS);
+    }
+
+    // ========================================================================================================================
+    // Reorder Stage
+    // ========================================================================================================================
+
+    /**
+     * Creates the reorder stage if the "reorderWindow" or "reorderEntries" property is set.
+     *
+     * @return the reorder buffer or null
+     */
+    protected ReorderBuffer<BufferedMessage> createReorderBuffer() {
+        long window = Utils.parseLong(getProperty("reorderWindow"), 0);
+        int entries = Utils.parseInt(getProperty("reorderEntries"), 0);
+        freeMessages = new ArrayList<>();
+        return window > 0 || entries > 0 ? new ReorderBuffer<>(window, entries) : null;
+    }
+
+    /**
+     * Returns a copy of the given message and its extras for the reorder stage.
+     *
+     * @param message the message
+     * @param extras the reader-specific values of the message (null if none)
+     * @return the copy (recycled if possible)
+     */
+    protected BufferedMessage copyMessage(LogMessage message, Object[] extras) {
+        BufferedMessage copy = freeMessages.isEmpty() ? new BufferedMessage() : freeMessages.remove(freeMessages.size() - 1);
+        LogMessage target = copy.message;
+        target.clear();
+        target.positionParser = message.positionParser;
+        target.position = message.position;
+        target.position2 = message.position2;
+        target.nameParser = message.nameParser;
+        target.name1 = message.name1;
+        target.name2 = message.name2;
+        target.tag = message.tag;
+        target.lineNo = message.lineNo;
+        System.arraycopy(message.values, 0, target.values, 0, Math.min(message.values.length, target.values.length));
+        target.setEmpty(false);
+        copy.extras = extras;
+        return copy;
+    }
+
+    /**
+     * Writes all messages released by the reorder stage.
+     *
+     * @throws ParseException on write errors
+     */
+    protected void drainReorder() throws ParseException {
+        BufferedMessage next;
+        while ((next = reorder.poll()) != null) {
+            emitMessage(next.message, next.extras);
+            next.message.clear();
+            next.extras = null;
+            freeMessages.add(next);
+        }
+    }
+
+    /**
+     * Writes all messages remaining in the reorder stage and reports late messages.
+     *
+     * @throws ParseException on write errors
+     */
+    protected void flushReorder() throws ParseException {
+        if (reorder == null)
+            return;
+        reorder.flush();
+        drainReorder();
+        if (reorder.getLateCount() > 0)
+            Utils.log("Messages behind the reorder window:", reorder.getLateCount());
+        reorder = null;
+    }
+
+    /**
+     * Message buffered by the reorder stage, with its extras.
+     */
+    protected class BufferedMessage {
+        // The message
+        final LogMessage message = new LogMessage();
+        // Reader-specific values (null if none)
+        Object[] extras;
+    }
+
+    // ========================================================================================================================
+    // Record Cache
+    // ========================================================================================================================
+
+    /**
+     * Opens the record cache if the "cacheRecords" property is set.
+     *
+     * @return the cache or null
+     */
+    protected LogRecordCache openRecordCache() {
+        return openRecordCache(getTypedProperty("cacheRecords", Boolean.class), false, false);
+    }
+
+    /**
+     * Opens the record cache. The cache is keyed by the content file and a hash of
+     * the reader configuration and all options.
+     *
+     * @param enabled false to disable the cache
+     * @param resumable true to keep an interrupted recording for resumption
+     * @param growing true to resume a complete recording of a file that has grown
+     * @return the cache or null
+     */
+    protected LogRecordCache openRecordCache(boolean enabled, boolean resumable, boolean growing) {
+        if (!enabled)
+            return null;
+        List<AbstractOptionParser> list = new ArrayList<>();
+        long hash = configurationHash;
+        for (AbstractOptionParser p : parser) {
+            list.add(p);
+            hash = 31 * hash + getOptionHash(p);
+        }
+        recordParsers = list.toArray(new AbstractOptionParser[list.size()]);
+        int size = Utils.parseInt(getProperty("recordCacheSize"), 1024);
+        return LogRecordCache.open(contentName, hash, size * 1024L * 1024L, resumable, growing);
+    }
+
+    /**
+     * Replays all messages of the record cache.
+     *
+     * @param progress progress/cancellation interface
+     * @param message the message instance to fill
+     * @return true if all messages have been replayed; false if canceled or the cache is invalid
+     * @throws ParseException on write errors
+     */
+    protected boolean replayMessages(IProgress progress, LogMessage message) throws ParseException {
+        LogRecordCache.Entry entry;
+        long count = 0;
+        while ((entry = recordCache.next()) != null) {
+            if (progress != null && progress.isCanceled())
+                return false;
+            message.clear();
+            message.positionParser = parserAt(entry.positionParser);
+            message.position = entry.position;
+            message.position2 = entry.position2;
+            message.nameParser = parserAt(entry.nameParser);
+            message.name1 = entry.name1;
+            message.name2 = entry.name2;
+            message.tag = entry.tag;
+            message.lineNo = (int) entry.lineNo;
+            System.arraycopy(entry.values, 0, message.values, 0, Math.min(entry.values.length, message.values.length));
+            message.setEmpty(false);
+            writeMessage(message, entry.extras != null && entry.extras.length > 0 ? entry.extras : null);
+            message.clear();
+            if ((++count % 1000) == 0)
+                flushAndSetProgress(progress);
+        }
+        return recordCache.isReplaying();
+    }
+
+    /**
+     * Closes the record cache; a recording is committed if completed is true.
+     *
+     * @param completed true if the import completed
+     */
+    protected void closeRecordCache(boolean completed) {
+        if (recordCache != null)
+            recordCache.close(completed);
+        recordCache = null;
+    }
+
+    /**
+     * Returns the index of an option parser in the record cache.
+     */
+    private int indexOf(AbstractOptionParser p) {
+        for (int n = 0; p != null && recordParsers != null && n < recordParsers.length; n++)
+            if (recordParsers[n] == p)
+                return n;
+        return -1;
+    }
+
+    /**
+     * Returns the option parser of an index in the record cache.
+     */
+    private AbstractOptionParser parserAt(int index) {
+        return recordParsers != null && index >= 0 && index < recordParsers.length ? recordParsers[index] : null;
+    }
+
+    // ========================================================================================================================
+    // Internal
+    // ========================================================================================================================
+
+    /**
+     * Skips the given number of bytes of the input stream.
+     *
+     * @param in the input stream
+     * @param bytes the number of bytes
+     * @throws IOException on read errors
+     */
+    protected static void skipBytes(InputStream in, long bytes) throws IOException {
+        while (bytes > 0) {
+            long skipped = in.skip(bytes);
+            if (skipped <= 0) {
+                if (in.read() < 0)
+                    return;
+                skipped = 1;
+            }
+            bytes -= skipped;
+        }
+    }
+}
@@ -0,0 +1,160 @@
+package de.toem.impulse.extension.log.common;
+
+import java.util.Arrays;
+
+/**
+ * Parse-time dictionary for enumeration members.
+ *
+ * Enumeration members (level, logger, thread, ...) have few distinct values but
+ * occur in every message. The dictionary maps a character range of the input
+ * line to a code and a canonical String instance, so that known values are
+ * neither copied into new Strings nor hashed again downstream (the canonical
+ * instance caches its hash code).
+ *
+ * Key features:
+ * - Lookup directly on a char range of a CharSequence; no allocation for known values
+ * - Leading and trailing white space of the range is ignored (like String.trim())
+ * - Dense int codes in order of first occurrence
+ *
+ * Implementation notes:
+ * - Open addressing with linear probing; the hash equals String.hashCode() of
+ *   the trimmed range.
+ * - The number of entries is limited; beyond the limit, new values are returned
+ *   as plain Strings without code (-1).
+ * - Not thread-safe; use one instance per member and import.
+ *
+ * Copyright (c) 2013-2025 Thomas Haber
+ * All rights reserved.
+ *
+ */
+public class EnumDictionary {
+
+    // Maximum number of entries
+    private static final int MAX_ENTRIES = 1 << 16;
+
+    // Hash table of codes (-1 for empty)
+    private int[] table = new int[64];
+    // Values by code
+    private String[] values = new String[32];
+    // Hashes by code
+    private int[] hashes = new int[32];
+    // Number of entries
+    private int size;
+    // Code of the last lookup
+    private int code = -1;
+
+    /**
+     * Constructs an empty EnumDictionary.
+     */
+    public EnumDictionary() {
+        Arrays.fill(table, -1);
+    }
+
+    /**
+     * Returns the canonical String for the trimmed range text[start..end).
+     * The code of the value is available with {@link #getCode()}.
+     *
+     * @param text the text
+     * @param start the start of the range
+     * @param end the end of the range
+     * @return the canonical value
+     */
+    public String get(CharSequence text, int start, int end) {
+        while (start < end && text.charAt(start) <= ' ')
+            start++;
+        while (end > start && text.charAt(end - 1) <= ' ')
+            end--;
+        int hash = 0;
+        for (int n = start; n < end; n++)
+            hash = 31 * hash + text.charAt(n);
+        int mask = table.length - 1;
+        int slot = mix(hash) & mask;
+        int length = end - start;
+        while (true) {
+            int candidate = table[slot];
+            if (candidate < 0)
+                break;
+            if (hashes[candidate] == hash && equals(values[candidate], text, start, length)) {
+                code = candidate;
+                return values[candidate];
+            }
+            slot = (slot + 1) & mask;
+        }
+
+        // new value
+        String value = text.subSequence(start, end).toString();
+        if (size >= MAX_ENTRIES) {
+            code = -1;
+            return value;
+        }
+        if (size == values.length) {
+            values = Arrays.copyOf(values, size * 2);
+            hashes = Arrays.copyOf(hashes, size * 2);
+        }
+        values[size] = value;
+        hashes[size] = hash;
+        table[slot] = size;
+        code = size++;
+        if (size * 2 > table.length)
+            rehash();
+        return value;
+    }
+
+    /**
+     * Returns the code of the last lookup.
+     *
+     * @return the code, or -1 if the value has no code
+     */
+    public int getCode() {
+        return code;
+    }
+
+    /**
+     * Returns the value for the given code.
+     *
+     * @param code the code
+     * @return the value or null
+     */
+    public String getValue(int code) {
+        return code >= 0 && code < size ? values[code] : null;
+    }
+
+    /**
+     * Returns the number of entries.
+     *
+     * @return the number of entries
+     */
+    public int size() {
+        return size;
+    }
+
+    // ========================================================================================================================
+    // Internal
+    // ========================================================================================================================
+
+    private static int mix(int hash) {
+        return hash ^ (hash >>> 16);
+    }
+
+    private static boolean equals(String value, CharSequence text, int start, int length) {
+        if (value.length() != length)
+            return false;
+        for (int n = 0; n < length; n++)
+            if (value.charAt(n) != text.charAt(start + n))
+                return false;
+        return true;
+    }
+
+    private void rehash() {
+        int[] table = new int[this.table.length * 2];
+        Arrays.fill(table, -1);
+        int mask = table.length - 1;
+        for (int n = 0; n < size; n++) {
+            int slot = mix(hashes[n]) & mask;
+            while (table[slot] >= 0)
+                slot = (slot + 1) & mask;
+            table[slot] = n;
+        }
+        this.table = table;
+    }
+}
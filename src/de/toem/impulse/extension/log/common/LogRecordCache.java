@@ -0,0 +1,815 @@
+package de.toem.impulse.extension.log.common;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.lang.reflect.Array;
+import java.lang.reflect.Field;
+import java.lang.reflect.Modifier;
+import java.nio.channels.FileLock;
+import java.nio.channels.OverlappingFileLockException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import de.toem.impulse.usecase.logging.AbstractLogOption;
+import de.toem.toolkits.core.Utils;
+
+/**
+ * Persistent cache of parsed log messages.
+ *
+ * A log reader records every message it writes (positions, names, tag and
+ * member values) into a compact binary cache file. When the same, unchanged
+ * file is opened again with the same reader configuration, the reader replays
+ * the messages sequentially from the cache instead of parsing the source.
+ *
+ * Key features:
+ * - Keyed by source file identity (canonical path) and a hash of the reader
+ *   type, configuration, options and properties
+ * - Automatic invalidation when the source file changes in size or modification time
+ * - Size-bounded cache directory with least-recently-used eviction
+ * - Per-file string table: repeated short strings (names, levels, tags) are
+ *   stored once and referenced by index
+ * - Optional checkpoints: an interrupted recording is kept up to its last
+ *   checkpoint, replayed on the next import and then continued from the
+ *   checkpoint position of the source
+ *
+ * File format (big endian):
+ * - Header: magic, version, configuration hash, source length, source modification time,
+ *   offset and source hash of the last checkpoint of a partial file
+ * - Per message: marker, position parser, name parser, positions, names, tag,
+ *   line number, member values and reader specific extra values
+ * - Per value: type, then the value; a string of the string table is either
+ *   defined (first occurrence, appended to the table) or referenced by index
+ * - Per checkpoint: marker, line number and character offset of the source
+ * - Trailer: end marker
+ *
+ * Implementation notes:
+ * - Messages are stored as they are passed to the log writer, before template
+ *   encoding; everything derived from the messages (signals, structs, templates)
+ *   is rebuilt on replay by the regular write path.
+ * - Only sources that resolve to a local file are cached.
+ * - Supported values are null, strings, longs, doubles, integers and booleans; a
+ *   message with another value type drops the cache for this import.
+ * - A cache file is locked (lock file next to it) while it is replayed or
+ *   recorded; a concurrent import of the same file and configuration parses
+ *   without cache.
+ * - Value counts and string lengths are checked against the file length before
+ *   anything is allocated; a damaged file is dropped.
+ * - A cache file is only committed if the import completed; the last access time
+ *   of a cache file is its modification time.
+ * - An incomplete recording with checkpoints is truncated to its last checkpoint
+ *   and kept as partial file; the next import with checkpoints enabled replays it
+ *   and appends to it.
+ * - For growing sources (live logs), a partial file is also continued if the
+ *   source has been appended to since it was written. Checkpoint offsets are then
+ *   byte offsets; the partial file keeps a hash of the first and the last block of
+ *   the source before its last checkpoint, and is only continued if the source
+ *   still has these bytes (not rotated or rewritten).
+ *
+ * Copyright (c) 2013-2025 Thomas Haber
+ * All rights reserved.
+ *
+ */
+public class LogRecordCache {
+
+    // File magic
+    private static final int MAGIC = 0x4c524331; // LRC1
+    // File version
+    private static final int VERSION = 3;
+    // Header offset of the source length and modification time
+    private static final int HEADER_SOURCE = 16;
+    // Header offset of the checkpoint offset and source hash
+    private static final int HEADER_CHECKPOINT = 32;
+    // Header length
+    private static final int HEADER_LENGTH = 48;
+    // Block length of the source hash
+    private static final int HASH_BLOCK = 1 << 16;
+    // Cache directory
+    private static final String DIRECTORY = "impulse-log-records";
+    // Cache file extension
+    private static final String EXTENSION = ".records";
+    // Partial cache file extension
+    private static final String PARTIAL = ".partial";
+    // Lock file extension
+    private static final String LOCK = ".lock";
+    // Maximum length of strings in the string table
+    private static final int SYMBOL_LENGTH = 64;
+    // Maximum number of strings in the string table
+    private static final int SYMBOL_COUNT = 1 << 16;
+
+    // Record markers
+    private static final byte MARK_END = 0;
+    private static final byte MARK_MESSAGE = 1;
+    private static final byte MARK_CHECKPOINT = 2;
+
+    // Value types
+    private static final byte TYPE_NULL = 0;
+    private static final byte TYPE_STRING = 1;
+    private static final byte TYPE_LONG = 2;
+    private static final byte TYPE_DOUBLE = 3;
+    private static final byte TYPE_INTEGER = 4;
+    private static final byte TYPE_BOOLEAN = 5;
+    private static final byte TYPE_SYMBOL_DEFINITION = 6;
+    private static final byte TYPE_SYMBOL = 7;
+
+    // Cache directory
+    private final File directory;
+    // Cache file
+    private final File file;
+    // Temporary file while recording
+    private final File temp;
+    // Partial file (interrupted recording up to the last checkpoint)
+    private final File partial;
+    // Maximum size of the cache directory in bytes
+    private final long limit;
+    // Lock of the cache files (released on close)
+    private FileLock lock;
+    // Input when replaying
+    private DataInputStream in;
+    // Length of the replayed file
+    private long inLength;
+    // Output when recording
+    private DataOutputStream out;
+    // Replayed message
+    private final Entry entry = new Entry();
+    // Replaying a partial file
+    private boolean resuming;
+    // Line number and character offset of the last replayed checkpoint (-1 if none)
+    private long resumeLineNo = -1;
+    private long resumeOffset = -1;
+    // Length of the temporary file at the last checkpoint (-1 if none)
+    private long checkpointLength = -1;
+    // Source offset of the last checkpoint (-1 if none)
+    private long checkpointOffset = -1;
+    // Length of the temporary file when recording started
+    private long baseLength;
+    // Length and modification time of the source
+    private final long length;
+    private final long modified;
+    // Source grows (live log)
+    private final boolean growing;
+    // The source file
+    private final File source;
+    // String table when replaying (by index) and recording (by string)
+    private final List<String> symbols = new ArrayList<>();
+    private final Map<String, Integer> symbolIndex = new HashMap<>();
+
+    /**
+     * Replayed message; fields are reused for each message.
+     */
+    public static class Entry {
+        // Index of the position parser (-1 if none)
+        public int positionParser;
+        // Index of the name parser (-1 if none)
+        public int nameParser;
+        // Primary position
+        public Long position;
+        // Secondary position
+        public Long position2;
+        // Primary name
+        public String name1;
+        // Secondary name
+        public String name2;
+        // Tag
+        public int tag;
+        // Line number
+        public long lineNo;
+        // Member values
+        public Object[] values = new Object[0];
+        // Reader specific extra values
+        public Object[] extras = new Object[0];
+    }
+
+    /**
+     * Opens the cache for the given content. If a valid cache file exists for the
+     * current state of the source file, the cache replays; otherwise it records.
+     *
+     * @param contentName the name of the content (file path)
+     * @param configurationHash the hash of the reader configuration
+     * @param limit the maximum size of the cache directory in bytes
+     * @return the cache or null if the content cannot be cached
+     */
+    public static LogRecordCache open(String contentName, long configurationHash, long limit) {
+        return open(contentName, configurationHash, limit, false);
+    }
+
+    /**
+     * Opens the cache for the given content. If a valid cache file exists for the
+     * current state of the source file, the cache replays. Otherwise, if resumable
+     * and a partial file exists, the cache replays the partial file (see
+     * {@link #isResuming()}); else it records.
+     *
+     * @param contentName the name of the content (file path)
+     * @param configurationHash the hash of the reader configuration
+     * @param limit the maximum size of the cache directory in bytes
+     * @param resumable true to resume interrupted recordings
+     * @return the cache or null if the content cannot be cached
+     */
+    public static LogRecordCache open(String contentName, long configurationHash, long limit, boolean resumable) {
+        return open(contentName, configurationHash, limit, resumable, false);
+    }
+
+    /**
+     * Opens the cache for the given content (see {@link #open(String, long, long, boolean)}).
+     * If growing, a partial file is also resumed if the source file is at least as
+     * long as when the partial file was written and still has the same bytes before
+     * the last checkpoint (the source is only appended to).
+     *
+     * @param contentName the name of the content (file path)
+     * @param configurationHash the hash of the reader configuration
+     * @param limit the maximum size of the cache directory in bytes
+     * @param resumable true to resume interrupted recordings
+     * @param growing true if the source grows (live log)
+     * @return the cache or null if the content cannot be cached
+     */
+    public static LogRecordCache open(String contentName, long configurationHash, long limit, boolean resumable, boolean growing) {
+        if (Utils.isEmpty(contentName) || limit <= 0)
+            return null;
+        try {
+            File source = new File(contentName);
+            if (!source.isFile())
+                return null;
+            source = source.getCanonicalFile();
+            File directory = new File(System.getProperty("java.io.tmpdir"), DIRECTORY);
+            if (!directory.isDirectory() && !directory.mkdirs())
+                return null;
+            long pathHash = hash(1125899906842597L, source.getPath());
+            String key = Long.toHexString(pathHash) + "_" + Long.toHexString(configurationHash);
+            FileLock lock = lock(new File(directory, key + LOCK));
+            if (lock == null)
+                return null;
+            try {
+                return new LogRecordCache(directory, new File(directory, key + EXTENSION), source, configurationHash, limit, resumable, growing, lock);
+            } catch (IOException e) {
+                release(lock);
+                return null;
+            }
+        } catch (IOException e) {
+            return null;
+        }
+    }
+
+    private LogRecordCache(File directory, File file, File source, long configurationHash, long limit, boolean resumable, boolean growing, FileLock lock)
+            throws IOException {
+        this.lock = lock;
+        this.directory = directory;
+        this.file = file;
+        this.temp = new File(file.getPath() + ".tmp");
+        this.partial = new File(file.getPath() + PARTIAL);
+        this.limit = limit;
+        this.source = source;
+        this.length = source.length();
+        this.modified = source.lastModified();
+        this.growing = growing;
+        if (file.isFile() && isTerminated(file) && (in = openHeader(file, configurationHash, length, modified, null)) != null) {
+            file.setLastModified(System.currentTimeMillis());
+            inLength = file.length();
+            return;
+        }
+        file.delete();
+        if (resumable && partial.isFile() && (in = openHeader(partial, configurationHash, length, modified, growing ? source : null)) != null) {
+            inLength = partial.length();
+            resuming = true;
+            return;
+        }
+        partial.delete();
+        out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(temp), 1 << 16));
+        out.writeInt(MAGIC);
+        out.writeInt(VERSION);
+        out.writeLong(configurationHash);
+        out.writeLong(length);
+        out.writeLong(modified);
+        out.writeLong(-1);
+        out.writeLong(0);
+    }
+
+    // ========================================================================================================================
+    // Hash
+    // ========================================================================================================================
+
+    /**
+     * Combines the hash with the given value. Supported values are null, strings,
+     * numbers, booleans and (nested) arrays; other values are hashed by their text.
+     *
+     * @param hash the current hash
+     * @param value the value
+     * @return the combined hash
+     */
+    public static long hash(long hash, Object value) {
+        if (value == null)
+            return 31 * hash + 0x11;
+        if (value instanceof Object[]) {
+            for (Object element : (Object[]) value)
+                hash = hash(hash, element);
+            return 31 * hash + 0x13;
+        }
+        String text = value instanceof String ? (String) value : String.valueOf(value);
+        for (int n = 0; n < text.length(); n++)
+            hash = 31 * hash + text.charAt(n);
+        return 31 * hash + 0x1f;
+    }
+
+    /**
+     * Combines the hash with the configuration of a log option: all public
+     * instance fields and the member definitions.
+     *
+     * @param hash the current hash
+     * @param option the log option
+     * @return the combined hash
+     */
+    public static long hash(long hash, AbstractLogOption option) {
+        if (option == null)
+            return hash(hash, (Object) null);
+        hash = hash(hash, option.getClass().getName());
+        Field[] fields = option.getClass().getFields();
+        Arrays.sort(fields, Comparator.comparing(Field::getName));
+        for (Field field : fields) {
+            if (Modifier.isStatic(field.getModifiers()))
+                continue;
+            try {
+                Object value = field.get(option);
+                hash = hash(hash, field.getName());
+                if (value != null && value.getClass().isArray() && !(value instanceof Object[])) {
+                    for (int n = 0; n < Array.getLength(value); n++)
+                        hash = hash(hash, Array.get(value, n));
+                } else
+                    hash = hash(hash, value);
+            } catch (IllegalAccessException e) {
+            }
+        }
+        for (int n = AbstractLogOption.MEMBER_MIN; n <= AbstractLogOption.MEMBER_MAX; n++)
+            hash = hash(hash(hash(hash, option.getValue("member" + n, String.class)), option.getValueAsInt("s" + n)),
+                    option.getValue("d" + n, String.class));
+        return hash;
+    }
+
+    // ========================================================================================================================
+    // Record / Replay
+    // ========================================================================================================================
+
+    /**
+     * Returns true if the cache replays recorded messages.
+     *
+     * @return true if replaying
+     */
+    public boolean isReplaying() {
+        return in != null;
+    }
+
+    /**
+     * Returns true if the cache replays a partial file. After replaying, the reader
+     * continues the import with {@link #resume()} at the source position of the last
+     * checkpoint.
+     *
+     * @return true if resuming
+     */
+    public boolean isResuming() {
+        return resuming;
+    }
+
+    /**
+     * Returns the line number of the last replayed checkpoint.
+     *
+     * @return the line number or -1
+     */
+    public long getResumeLineNo() {
+        return resumeLineNo;
+    }
+
+    /**
+     * Returns the character offset of the last replayed checkpoint.
+     *
+     * @return the character offset or -1
+     */
+    public long getResumeOffset() {
+        return resumeOffset;
+    }
+
+    /**
+     * Switches from replaying a partial file to recording; new messages are appended
+     * to the replayed ones.
+     *
+     * @return true if the cache records; false if the partial file could not be continued
+     */
+    public boolean resume() {
+        if (!resuming || in == null || resumeOffset < 0)
+            return false;
+        try {
+            in.close();
+            in = null;
+            resuming = false;
+            temp.delete();
+            if (!partial.renameTo(temp))
+                return false;
+            if (growing)
+                try (RandomAccessFile raf = new RandomAccessFile(temp, "rw")) {
+                    raf.seek(HEADER_SOURCE);
+                    raf.writeLong(length);
+                    raf.writeLong(modified);
+                }
+            baseLength = temp.length();
+            checkpointLength = baseLength;
+            checkpointOffset = resumeOffset;
+            // continue the string table of the replayed messages
+            for (int n = 0; n < symbols.size(); n++)
+                symbolIndex.put(symbols.get(n), n);
+            out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(temp, true), 1 << 16));
+            return true;
+        } catch (IOException e) {
+            drop();
+            return false;
+        }
+    }
+
+    /**
+     * Returns true if the cache records messages.
+     *
+     * @return true if recording
+     */
+    public boolean isRecording() {
+        return out != null;
+    }
+
+    /**
+     * Records a message.
+     *
+     * @param positionParser index of the position parser (-1 if none)
+     * @param nameParser index of the name parser (-1 if none)
+     * @param position the primary position (may be null)
+     * @param position2 the secondary position (may be null)
+     * @param name1 the primary name (may be null)
+     * @param name2 the secondary name (may be null)
+     * @param tag the tag
+     * @param lineNo the line number
+     * @param values the member values
+     * @param extras reader specific extra values (may be null)
+     */
+    public void record(int positionParser, int nameParser, Long position, Long position2, String name1, String name2, int tag, long lineNo, Object[] values,
+            Object[] extras) {
+        if (out == null)
+            return;
+        try {
+            out.writeByte(MARK_MESSAGE);
+            out.writeInt(positionParser);
+            out.writeInt(nameParser);
+            out.writeByte((position != null ? 1 : 0) | (position2 != null ? 2 : 0));
+            if (position != null)
+                out.writeLong(position);
+            if (position2 != null)
+                out.writeLong(position2);
+            writeValue(name1);
+            writeValue(name2);
+            out.writeInt(tag);
+            out.writeLong(lineNo);
+            writeValues(values);
+            writeValues(extras);
+        } catch (IOException e) {
+            drop();
+        }
+    }
+
+    /**
+     * Replays the next message.
+     *
+     * @return the message or null at the end of the cache; the entry is reused
+     */
+    public Entry next() {
+        if (in == null)
+            return null;
+        try {
+            byte mark;
+            while ((mark = in.readByte()) == MARK_CHECKPOINT) {
+                resumeLineNo = in.readLong();
+                resumeOffset = in.readLong();
+            }
+            if (mark != MARK_MESSAGE)
+                return null;
+            entry.positionParser = in.readInt();
+            entry.nameParser = in.readInt();
+            int flags = in.readByte();
+            entry.position = (flags & 1) != 0 ? in.readLong() : null;
+            entry.position2 = (flags & 2) != 0 ? in.readLong() : null;
+            entry.name1 = (String) readValue();
+            entry.name2 = (String) readValue();
+            entry.tag = in.readInt();
+            entry.lineNo = in.readLong();
+            entry.values = readValues(entry.values);
+            entry.extras = readValues(entry.extras);
+            return entry;
+        } catch (EOFException e) {
+            // a partial file ends after its last checkpoint
+            if (resuming)
+                return null;
+            drop();
+            return null;
+        } catch (IOException | ClassCastException e) {
+            drop();
+            return null;
+        }
+    }
+
+    /**
+     * Writes a checkpoint. All messages recorded so far belong to the source before
+     * the given position; an interrupted import continues at this position.
+     *
+     * @param lineNo the line number at the position
+     * @param offset the character offset of the position
+     */
+    public void checkpoint(long lineNo, long offset) {
+        if (out == null)
+            return;
+        try {
+            out.writeByte(MARK_CHECKPOINT);
+            out.writeLong(lineNo);
+            out.writeLong(offset);
+            out.flush();
+            checkpointLength = baseLength + out.size();
+            checkpointOffset = offset;
+        } catch (IOException e) {
+            drop();
+        }
+    }
+
+    /**
+     * Closes the cache. A recording is committed if completed is true; then the
+     * cache directory is trimmed to its size limit. An incomplete recording with
+     * checkpoints is kept as partial file up to its last checkpoint.
+     *
+     * @param completed true if the import completed
+     */
+    public void close(boolean completed) {
+        try {
+            if (in != null)
+                in.close();
+            if (out != null) {
+                if (completed) {
+                    out.writeByte(MARK_END);
+                    out.close();
+                    file.delete();
+                    partial.delete();
+                    if (temp.renameTo(file))
+                        evict();
+                } else {
+                    out.close();
+                    if (checkpointLength > 0) {
+                        try (RandomAccessFile raf = new RandomAccessFile(temp, "rw")) {
+                            raf.setLength(checkpointLength);
+                            raf.seek(HEADER_CHECKPOINT);
+                            raf.writeLong(checkpointOffset);
+                            raf.writeLong(growing ? hashSource(source, checkpointOffset) : 0);
+                        }
+                        partial.delete();
+                        if (temp.renameTo(partial))
+                            evict();
+                    }
+                    temp.delete();
+                }
+            }
+        } catch (IOException e) {
+            temp.delete();
+        }
+        in = null;
+        out = null;
+        release(lock);
+        lock = null;
+    }
+
+    /**
+     * Drops the cache; replaying or recording stops and the file is removed.
+     */
+    public void drop() {
+        try {
+            if (in != null)
+                in.close();
+            if (out != null)
+                out.close();
+        } catch (IOException e) {
+        }
+        if (in != null)
+            (resuming ? partial : file).delete();
+        temp.delete();
+        in = null;
+        out = null;
+        release(lock);
+        lock = null;
+    }
+
+    // ========================================================================================================================
+    // Internal
+    // ========================================================================================================================
+
+    /**
+     * Opens a cache file and checks its header. With a growing source, any recorded
+     * source length up to the current length is accepted and the modification time is
+     * not checked; instead, the source must still have the bytes before the recorded
+     * checkpoint (see {@link #hashSource(File, long)}).
+     */
+    private static DataInputStream openHeader(File file, long configurationHash, long length, long modified, File growing) throws IOException {
+        DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(file), 1 << 16));
+        try {
+            if (in.readInt() == MAGIC && in.readInt() == VERSION && in.readLong() == configurationHash) {
+                long recordedLength = in.readLong();
+                long recordedModified = in.readLong();
+                long recordedOffset = in.readLong();
+                long recordedHash = in.readLong();
+                if (growing == null ? recordedLength == length && recordedModified == modified
+                        : recordedLength <= length && recordedOffset >= 0 && recordedOffset <= length && hashSource(growing, recordedOffset) == recordedHash)
+                    return in;
+            }
+        } catch (IOException e) {
+        }
+        in.close();
+        return null;
+    }
+
+    /**
+     * Returns the hash of the source bytes before the given offset: the first block
+     * (content of a rotated log differs from its start) and the last block before the
+     * offset (content at the resume position).
+     */
+    private static long hashSource(File source, long offset) throws IOException {
+        byte[] block = new byte[(int) Math.min(HASH_BLOCK, offset)];
+        long hash = 1125899906842597L;
+        try (RandomAccessFile raf = new RandomAccessFile(source, "r")) {
+            if (raf.length() < offset)
+                return hash - 1;
+            raf.readFully(block);
+            for (byte b : block)
+                hash = 31 * hash + b;
+            raf.seek(Math.max(block.length, offset - HASH_BLOCK));
+            int last = (int) (offset - raf.getFilePointer());
+            raf.readFully(block, 0, last);
+            for (int n = 0; n < last; n++)
+                hash = 31 * hash + block[n];
+        }
+        return hash;
+    }
+
+    /**
+     * Locks the given lock file. Returns null if the file is locked by another
+     * import (of this or another process).
+     */
+    private static FileLock lock(File file) {
+        RandomAccessFile raf = null;
+        try {
+            raf = new RandomAccessFile(file, "rw");
+            FileLock lock = raf.getChannel().tryLock();
+            if (lock != null)
+                return lock;
+        } catch (IOException | OverlappingFileLockException e) {
+        }
+        try {
+            if (raf != null)
+                raf.close();
+        } catch (IOException e) {
+        }
+        return null;
+    }
+
+    private static void release(FileLock lock) {
+        if (lock == null)
+            return;
+        try {
+            lock.release();
+            lock.channel().close();
+        } catch (IOException e) {
+        }
+    }
+
+    private static boolean isTerminated(File file) {
+        try (RandomAccessFile raf = new RandomAccessFile(file, "r")) {
+            long length = raf.length();
+            if (length <= HEADER_LENGTH)
+                return false;
+            raf.seek(length - 1);
+            return raf.readByte() == MARK_END;
+        } catch (IOException e) {
+            return false;
+        }
+    }
+
+    private void evict() {
+        File[] files = directory.listFiles((dir, name) -> name.endsWith(EXTENSION) || name.endsWith(PARTIAL));
+        if (files == null)
+            return;
+        long total = 0;
+        long[] modified = new long[files.length];
+        for (int n = 0; n < files.length; n++) {
+            total += files[n].length();
+            modified[n] = files[n].lastModified();
+        }
+        Integer[] order = new Integer[files.length];
+        for (int n = 0; n < order.length; n++)
+            order[n] = n;
+        Arrays.sort(order, Comparator.comparingLong(n -> modified[n]));
+        for (int n = 0; n < order.length && total > limit; n++) {
+            File candidate = files[order[n]];
+            long length = candidate.length();
+            if (candidate.delete())
+                total -= length;
+        }
+    }
+
+    private void writeValues(Object[] values) throws IOException {
+        int count = values != null ? values.length : 0;
+        out.writeInt(count);
+        for (int n = 0; n < count; n++)
+            writeValue(values[n]);
+    }
+
+    private void writeValue(Object value) throws IOException {
+        if (value == null)
+            out.writeByte(TYPE_NULL);
+        else if (value instanceof Long) {
+            out.writeByte(TYPE_LONG);
+            out.writeLong((Long) value);
+        } else if (value instanceof Double) {
+            out.writeByte(TYPE_DOUBLE);
+            out.writeDouble((Double) value);
+        } else if (value instanceof Integer) {
+            out.writeByte(TYPE_INTEGER);
+            out.writeInt((Integer) value);
+        } else if (value instanceof Boolean) {
+            out.writeByte(TYPE_BOOLEAN);
+            out.writeBoolean((Boolean) value);
+        } else if (value instanceof String) {
+            String text = (String) value;
+            Integer symbol = text.length() <= SYMBOL_LENGTH ? symbolIndex.get(text) : null;
+            if (symbol != null) {
+                out.writeByte(TYPE_SYMBOL);
+                out.writeInt(symbol);
+                return;
+            }
+            byte[] bytes = text.getBytes(StandardCharsets.UTF_8);
+            if (text.length() <= SYMBOL_LENGTH && symbolIndex.size() < SYMBOL_COUNT) {
+                symbolIndex.put(text, symbolIndex.size());
+                out.writeByte(TYPE_SYMBOL_DEFINITION);
+            } else
+                out.writeByte(TYPE_STRING);
+            out.writeInt(bytes.length);
+            out.write(bytes);
+        } else
+            throw new IOException("Unsupported value type " + value.getClass().getName());
+    }
+
+    private Object[] readValues(Object[] values) throws IOException {
+        int count = in.readInt();
+        if (count < 0 || count > inLength)
+            throw new IOException("Invalid value count");
+        if (values.length != count)
+            values = new Object[count];
+        for (int n = 0; n < count; n++)
+            values[n] = readValue();
+        return values;
+    }
+
+    private Object readValue() throws IOException {
+        byte type = in.readByte();
+        switch (type) {
+        case TYPE_NULL:
+            return null;
+        case TYPE_LONG:
+            return in.readLong();
+        case TYPE_DOUBLE:
+            return in.readDouble();
+        case TYPE_INTEGER:
+            return in.readInt();
+        case TYPE_BOOLEAN:
+            return in.readBoolean();
+        case TYPE_STRING:
+            return readString();
+        case TYPE_SYMBOL_DEFINITION:
+            String symbol = readString();
+            symbols.add(symbol);
+            return symbol;
+        case TYPE_SYMBOL:
+            int index = in.readInt();
+            if (index < 0 || index >= symbols.size())
+                throw new IOException("Invalid string index");
+            return symbols.get(index);
+        default:
+            throw new IOException("Invalid value type " + type);
+        }
+    }
+
+    private String readString() throws IOException {
+        int length = in.readInt();
+        if (length < 0 || length > inLength)
+            throw new IOException("Invalid string length");
+        byte[] bytes = new byte[length];
+        in.readFully(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,124 @@
+package de.toem.impulse.extension.log.common;
+
+import de.toem.impulse.samples.IEventSamplesWriter;
+
+/**
+ * Message template encoding for log readers.
+ *
+ * This class connects a {@link TemplateMiner} with the message member of a log
+ * reader. Before a message is written, the message text is replaced by its
+ * parameter list; after the message is written, the template is emitted into an
+ * enumeration signal at the message position. The original text can be restored
+ * by filling the template wildcards with the parameters.
+ *
+ * Implementation notes:
+ * - The enumeration signal receives one sample per encoded message and cannot go
+ *   back in domain. A message is only encoded if its template can be written,
+ *   i.e. it has a position that is not behind the last encoded one (interleaved
+ *   signals, reordered messages); other messages keep their original text.
+ * - Messages the miner does not accept (e.g. all template slots in use) keep
+ *   their original text as well.
+ * - Parameters are joined with a single space. Only messages whose words are
+ *   separated by single spaces are encoded, so filling the wildcards restores the
+ *   exact text; a message without parameters is encoded as an empty string.
+ *   Other messages (e.g. with line feeds or aligned columns) keep their text.
+ * - The message member index is passed per message, as it depends on the option
+ *   that parsed the message.
+ *
+ * Copyright (c) 2013-2025 Thomas Haber
+ * All rights reserved.
+ *
+ */
+public class MessageTemplates {
+
+    // The miner
+    private final TemplateMiner miner;
+    // Enumeration writer for templates
+    private final IEventSamplesWriter writer;
+
+    // Template of the current message (-1 if the message is not encoded)
+    private int current = -1;
+    // Position of the last encoded message
+    private long last = Long.MIN_VALUE;
+    // Last written template position
+    private long written = Long.MIN_VALUE;
+
+    /**
+     * Constructs a MessageTemplates instance.
+     *
+     * @param miner the template miner
+     * @param writer the enumeration writer for templates
+     */
+    public MessageTemplates(TemplateMiner miner, IEventSamplesWriter writer) {
+        this.miner = miner;
+        this.writer = writer;
+    }
+
+    /**
+     * Replaces the message member text in the given value array by its template parameters.
+     * The text is kept if the template of the message could not be written at its position
+     * or the text could not be restored exactly from template and parameters.
+     *
+     * @param values the message values
+     * @param index the value index of the message member (-1 if none)
+     * @param position the message position (null if unknown)
+     * @return true if the message has been encoded
+     */
+    public boolean encode(Object[] values, int index, Long position) {
+        current = -1;
+        if (index < 0 || index >= values.length || !(values[index] instanceof String))
+            return false;
+        if (position == null || position < last || !isCanonical((String) values[index]))
+            return false;
+        current = miner.add((String) values[index]);
+        if (current < 0)
+            return false;
+        values[index] = String.join(" ", miner.getParameters());
+        last = position;
+        return true;
+    }
+
+    /**
+     * Writes the template of the current (encoded) message.
+     *
+     * @param position the position the message has been written at
+     */
+    public void write(long position) {
+        if (current < 0)
+            return;
+        // encoded messages are in position order; never drop the template of one
+        written = Math.max(written, position);
+        writer.write(written, false, miner.getTemplate(current));
+        current = -1;
+    }
+
+    /**
+     * Returns the template miner.
+     *
+     * @return the miner
+     */
+    public TemplateMiner getMiner() {
+        return miner;
+    }
+
+    // ========================================================================================================================
+    // Internal
+    // ========================================================================================================================
+
+    /**
+     * Returns true if the words of the given text are separated by single spaces
+     * (no other white space, no leading or trailing space) and no word equals the
+     * wildcard. Only such texts are restored exactly from their template and parameters.
+     */
+    static boolean isCanonical(String text) {
+        int len = text.length();
+        if (len == 0 || text.charAt(0) == ' ' || text.charAt(len - 1) == ' ' || text.contains(TemplateMiner.WILDCARD))
+            return false;
+        for (int n = 0; n < len; n++) {
+            char c = text.charAt(n);
+            if (c == ' ' ? text.charAt(n - 1) == ' ' : Character.isWhitespace(c))
+                return false;
+        }
+        return true;
+    }
+}
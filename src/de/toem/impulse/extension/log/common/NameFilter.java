@@ -0,0 +1,130 @@
+package de.toem.impulse.extension.log.common;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.regex.Pattern;
+import java.util.regex.PatternSyntaxException;
+
+import de.toem.toolkits.core.Utils;
+import de.toem.toolkits.utils.serializer.ParseException;
+
+/**
+ * Include/exclude filter on log message names.
+ *
+ * The filter evaluates the "nameInclude" and "nameExclude" expressions of a log
+ * reader as soon as the names of a message are known, so that messages of excluded
+ * loggers can skip member extraction, tag matching and writing. Decisions are
+ * cached per distinct name pair; the expressions are evaluated only once per
+ * logger.
+ *
+ * A name pair is accepted if the include expression (if any) matches the
+ * primary name or the combined name "name1 (name2)", and the exclude expression
+ * (if any) matches neither. These properties are independent of the signal
+ * include/exclude properties of the framework, which are applied to signals.
+ *
+ * Implementation notes:
+ * - Lookups for known names do not allocate.
+ * - The cache is bounded; beyond the limit, decisions are evaluated directly.
+ * - Not thread-safe; use one instance per import.
+ *
+ * Copyright (c) 2013-2025 Thomas Haber
+ * All rights reserved.
+ *
+ */
+public class NameFilter {
+
+    // Maximum number of cached primary names
+    private static final int MAX_CACHED = 10000;
+
+    // Include expression (null if none)
+    private final Pattern include;
+    // Exclude expression (null if none)
+    private final Pattern exclude;
+    // Decisions by primary name
+    private final Map<String, Decision> decisions = new HashMap<>();
+
+    /**
+     * Cached decisions for one primary name.
+     */
+    private static class Decision {
+        // Decision without secondary name (null if not yet evaluated)
+        Boolean accepted;
+        // Decisions by secondary name
+        Map<String, Boolean> byName2;
+    }
+
+    /**
+     * Creates a filter for the given expressions.
+     *
+     * @param include the include expression (may be empty)
+     * @param exclude the exclude expression (may be empty)
+     * @return the filter, or null if both expressions are empty
+     * @throws ParseException if an expression is invalid
+     */
+    public static NameFilter create(String include, String exclude) throws ParseException {
+        Pattern in = compile(include);
+        Pattern ex = compile(exclude);
+        return in != null || ex != null ? new NameFilter(in, ex) : null;
+    }
+
+    private NameFilter(Pattern include, Pattern exclude) {
+        this.include = include;
+        this.exclude = exclude;
+    }
+
+    /**
+     * Returns true if messages with the given names are accepted.
+     *
+     * @param name1 the primary name
+     * @param name2 the secondary name (may be null)
+     * @return true if accepted
+     */
+    public boolean accepts(String name1, String name2) {
+        if (name1 == null)
+            return true;
+        Decision decision = decisions.get(name1);
+        if (decision == null) {
+            if (decisions.size() >= MAX_CACHED)
+                return evaluate(name1, name2);
+            decision = new Decision();
+            decisions.put(name1, decision);
+        }
+        if (Utils.isEmpty(name2)) {
+            if (decision.accepted == null)
+                decision.accepted = evaluate(name1, null);
+            return decision.accepted;
+        }
+        if (decision.byName2 == null)
+            decision.byName2 = new HashMap<>();
+        Boolean accepted = decision.byName2.get(name2);
+        if (accepted == null) {
+            accepted = evaluate(name1, name2);
+            if (decision.byName2.size() < MAX_CACHED)
+                decision.byName2.put(name2, accepted);
+        }
+        return accepted;
+    }
+
+    // ========================================================================================================================
+    // Internal
+    // ========================================================================================================================
+
+    private boolean evaluate(String name1, String name2) {
+        String combined = !Utils.isEmpty(name2) ? name1 + " (" + name2 + ")" : null;
+        if (include != null && !include.matcher(name1).matches() && (combined == null || !include.matcher(combined).matches()))
+            return false;
+        if (exclude != null && (exclude.matcher(name1).matches() || (combined != null && exclude.matcher(combined).matches())))
+            return false;
+        return true;
+    }
+
+    private static Pattern compile(String expression) throws ParseException {
+        if (Utils.isEmpty(expression) || Utils.isEmpty(expression.trim()))
+            return null;
+        try {
+            return Pattern.compile(expression.trim());
+        } catch (PatternSyntaxException e) {
+            throw new ParseException(0, "Invalid name filter: " + expression.trim(), e);
+        }
+    }
+}
@@ -0,0 +1,138 @@
+package de.toem.impulse.extension.log.common;
+
+import de.toem.toolkits.pattern.threading.IProgress;
+
+/**
+ * Progressive import schedule for log readers.
+ *
+ * The reader reports every written message; the schedule decides when the
+ * written samples are committed to the viewer. The first screen (the first N
+ * messages or the first span of the domain) is committed as soon as it is
+ * complete. Afterwards the import continues with a lower thread priority and
+ * commits in large batches, so the viewer stays interactive while the rest of
+ * the file is appended.
+ *
+ * Key features:
+ * - First commit after a number of messages and/or a domain span
+ * - Large commit batches for the remaining messages
+ * - Lowered thread priority after the first commit; restored by {@link #finish()}
+ *
+ * Implementation notes:
+ * - The schedule does not start threads; the import runs in the job that
+ *   started the reader.
+ * - Not thread-safe; use one instance per import.
+ *
+ * Copyright (c) 2013-2025 Thomas Haber
+ * All rights reserved.
+ *
+ */
+public class ProgressiveLoad {
+
+    // Default number of messages per commit after the first screen
+    public static final int DEFAULT_BATCH = 100000;
+
+    // Progress of the import
+    private final IProgress progress;
+    // Messages of the first screen (0 for none)
+    private final long firstMessages;
+    // Domain span of the first screen (0 for none)
+    private final long firstSpan;
+    // Messages per commit after the first screen
+    private final long batch;
+
+    // Written messages
+    private long count;
+    // First position (null until known)
+    private Long firstPosition;
+    // First screen committed
+    private boolean committed;
+    // Messages at the last commit
+    private long lastCommit;
+    // Thread and priority before lowering (null if not lowered)
+    private Thread thread;
+    private int priority;
+
+    /**
+     * Constructs a ProgressiveLoad.
+     *
+     * @param progress the progress of the import (may be null)
+     * @param firstMessages the number of messages of the first screen (0 for none)
+     * @param firstSpan the domain span of the first screen (0 for none)
+     * @param batch the number of messages per commit after the first screen
+     */
+    public ProgressiveLoad(IProgress progress, long firstMessages, long firstSpan, long batch) {
+        this.progress = progress;
+        this.firstMessages = Math.max(0, firstMessages);
+        this.firstSpan = Math.max(0, firstSpan);
+        this.batch = Math.max(1, batch);
+    }
+
+    /**
+     * Counts a written message.
+     *
+     * @param position the position of the message (may be null)
+     * @return true if the written samples shall be committed now
+     */
+    public boolean next(Long position) {
+        count++;
+        if (!committed) {
+            if (firstPosition == null)
+                firstPosition = position;
+            boolean byCount = firstMessages > 0 && count >= firstMessages;
+            boolean bySpan = firstSpan > 0 && position != null && firstPosition != null && position - firstPosition >= firstSpan;
+            if (!byCount && !bySpan)
+                return false;
+            committed = true;
+            lastCommit = count;
+            lower();
+            return true;
+        }
+        if (count - lastCommit < batch)
+            return false;
+        lastCommit = count;
+        return true;
+    }
+
+    /**
+     * Returns the progress of the import.
+     *
+     * @return the progress (may be null)
+     */
+    public IProgress getProgress() {
+        return progress;
+    }
+
+    /**
+     * Returns true if the first screen has been committed.
+     *
+     * @return true if committed
+     */
+    public boolean isCommitted() {
+        return committed;
+    }
+
+    /**
+     * Restores the thread priority.
+     */
+    public void finish() {
+        if (thread != null)
+            thread.setPriority(priority);
+        thread = null;
+    }
+
+    // ========================================================================================================================
+    // Internal
+    // ========================================================================================================================
+
+    private void lower() {
+        Thread current = Thread.currentThread();
+        if (current.getPriority() <= Thread.MIN_PRIORITY)
+            return;
+        try {
+            priority = current.getPriority();
+            current.setPriority(Thread.MIN_PRIORITY);
+            thread = current;
+        } catch (SecurityException e) {
+        }
+    }
+}
@@ -0,0 +1,171 @@
+package de.toem.impulse.extension.log.common;
+
+import java.util.ArrayDeque;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.PriorityQueue;
+
+/**
+ * Bounded reorder stage for log messages with slightly out-of-order positions.
+ *
+ * Messages are collected per signal (primary and secondary name) in a min-heap
+ * ordered by position. A message is released when the signal has seen a
+ * position that is more than the window ahead of it, or when the heap of the
+ * signal exceeds the maximum number of entries. Released messages of a signal
+ * therefore reach the writer in non-decreasing order as long as the disorder
+ * stays within the window.
+ *
+ * Key features:
+ * - Per-signal min-heaps; no sorting of the whole record afterwards
+ * - Memory bounded by the window (domain units) and/or the entry count
+ * - Messages arriving behind an already released position are counted as late
+ *   and released immediately
+ *
+ * Implementation notes:
+ * - Messages with equal positions keep their arrival order.
+ * - Not thread-safe; use one instance per import.
+ *
+ * Copyright (c) 2013-2025 Thomas Haber
+ * All rights reserved.
+ *
+ */
+public class ReorderBuffer<T> {
+
+    // Window in domain units (0 for none)
+    private final long window;
+    // Maximum entries per signal (0 for none)
+    private final int maxEntries;
+
+    // Lanes by primary and secondary name
+    private final Map<String, Map<String, Lane<T>>> lanes = new HashMap<>();
+    // Released items
+    private final ArrayDeque<T> ready = new ArrayDeque<>();
+    // Arrival counter (stable order)
+    private long sequence;
+    // Number of late items
+    private long late;
+
+    /**
+     * Buffered item.
+     */
+    private static class Entry<T> implements Comparable<Entry<T>> {
+        final long position;
+        final long sequence;
+        final T item;
+
+        Entry(long position, long sequence, T item) {
+            this.position = position;
+            this.sequence = sequence;
+            this.item = item;
+        }
+
+        @Override
+        public int compareTo(Entry<T> o) {
+            return position != o.position ? Long.compare(position, o.position) : Long.compare(sequence, o.sequence);
+        }
+    }
+
+    /**
+     * Reorder state of one signal.
+     */
+    private static class Lane<T> {
+        final PriorityQueue<Entry<T>> heap = new PriorityQueue<>();
+        long max = Long.MIN_VALUE;
+        long released = Long.MIN_VALUE;
+    }
+
+    /**
+     * Constructs a ReorderBuffer.
+     *
+     * @param window the window in domain units (0 for none)
+     * @param maxEntries the maximum number of buffered entries per signal (0 for none)
+     */
+    public ReorderBuffer(long window, int maxEntries) {
+        this.window = Math.max(0, window);
+        this.maxEntries = Math.max(0, maxEntries);
+    }
+
+    /**
+     * Adds an item. Items that become releasable are available with {@link #poll()}.
+     *
+     * @param name1 the primary name of the signal (may be null)
+     * @param name2 the secondary name of the signal (may be null)
+     * @param position the position of the item
+     * @param item the item
+     */
+    public void add(String name1, String name2, long position, T item) {
+        Lane<T> lane = lane(name1, name2);
+        if (position < lane.released) {
+            late++;
+            ready.add(item);
+            return;
+        }
+        lane.heap.add(new Entry<>(position, sequence++, item));
+        if (position > lane.max)
+            lane.max = position;
+        while (!lane.heap.isEmpty()) {
+            Entry<T> head = lane.heap.peek();
+            boolean byWindow = window > 0 && head.position <= lane.max - window;
+            boolean bySize = maxEntries > 0 && lane.heap.size() > maxEntries;
+            boolean unbounded = window == 0 && maxEntries == 0;
+            if (!byWindow && !bySize && !unbounded)
+                break;
+            release(lane, lane.heap.poll());
+        }
+    }
+
+    /**
+     * Releases all buffered items (e.g. at the end of the input). Items of a signal are
+     * released in position order; signals are released one after the other.
+     */
+    public void flush() {
+        for (Map<String, Lane<T>> byName2 : lanes.values())
+            for (Lane<T> lane : byName2.values())
+                while (!lane.heap.isEmpty())
+                    release(lane, lane.heap.poll());
+    }
+
+    /**
+     * Returns the next released item.
+     *
+     * @return the item or null if none is released
+     */
+    public T poll() {
+        return ready.poll();
+    }
+
+    /**
+     * Returns the number of items that arrived behind an already released position of their signal.
+     *
+     * @return the number of late items
+     */
+    public long getLateCount() {
+        return late;
+    }
+
+    // ========================================================================================================================
+    // Internal
+    // ========================================================================================================================
+
+    private Lane<T> lane(String name1, String name2) {
+        String key1 = name1 != null ? name1 : "";
+        String key2 = name2 != null ? name2 : "";
+        Map<String, Lane<T>> byName2 = lanes.get(key1);
+        if (byName2 == null) {
+            byName2 = new HashMap<>();
+            lanes.put(key1, byName2);
+        }
+        Lane<T> lane = byName2.get(key2);
+        if (lane == null) {
+            lane = new Lane<>();
+            byName2.put(key2, lane);
+        }
+        return lane;
+    }
+
+    private void release(Lane<T> lane, Entry<T> entry) {
+        if (entry.position > lane.released)
+            lane.released = entry.position;
+        ready.add(entry.item);
+    }
+}
@@ -0,0 +1,78 @@
+package de.toem.impulse.extension.log.common;
+
+/**
+ * Precompiled list of source identifiers of a log option.
+ *
+ * The XML, JSON and YAML log options configure their sources as a comma
+ * separated list (e.g. "logger,timestamp,level"). The plan splits the list
+ * once, trims and interns the identifiers and provides indexed access. Each
+ * option holds the plan of its current list, so the option accessors no longer
+ * split the list on every call.
+ *
+ * Key features:
+ * - Identifiers are trimmed and interned (identity comparisons are possible)
+ * - Immutable and thread-safe
+ *
+ * Implementation notes:
+ * - The number of entries equals String.split(",") of the list, so source
+ *   numbering is unchanged (an empty list has one empty entry).
+ * - The plan keeps its list, so an option can detect a changed list with
+ *   {@link #isOf(String)} and create a new plan.
+ *
+ * Copyright (c) 2013-2025 Thomas Haber
+ * All rights reserved.
+ *
+ */
+public final class SourcePlan {
+
+    // Source list
+    private final String list;
+    // Interned identifiers in list order
+    private final String[] identifiers;
+
+    private SourcePlan(String list) {
+        this.list = list;
+        identifiers = list.split(",");
+        for (int n = 0; n < identifiers.length; n++)
+            identifiers[n] = identifiers[n].trim().intern();
+    }
+
+    /**
+     * Returns the plan of the given list.
+     *
+     * @param list the comma separated list of identifiers
+     * @return the plan or null if the list is null
+     */
+    public static SourcePlan of(String list) {
+        return list != null ? new SourcePlan(list) : null;
+    }
+
+    /**
+     * Returns true if this plan has been created for the given list.
+     *
+     * @param list the comma separated list of identifiers
+     * @return true if the list is the list of this plan
+     */
+    public boolean isOf(String list) {
+        return this.list == list || this.list.equals(list);
+    }
+
+    /**
+     * Returns the number of identifiers.
+     *
+     * @return the number of identifiers
+     */
+    public int size() {
+        return identifiers.length;
+    }
+
+    /**
+     * Returns the identifier at the given index.
+     *
+     * @param index the index (0 for the first identifier)
+     * @return the interned identifier or null if the index is out of range
+     */
+    public String get(int index) {
+        return index >= 0 && index < identifiers.length ? identifiers[index] : null;
+    }
+}
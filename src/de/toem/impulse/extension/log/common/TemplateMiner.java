@@ -0,0 +1,274 @@
+package de.toem.impulse.extension.log.common;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Online message template miner.
+ *
+ * This class groups free-text log messages into templates using a fixed-depth
+ * parse tree (Drain algorithm). Messages are tokenized at white space; the tree
+ * routes a message by its token count and its leading tokens to a small list of
+ * template clusters, and the most similar cluster absorbs the message. Token
+ * positions that differ between messages of a cluster become parameters
+ * (wildcards).
+ *
+ * Key features:
+ * - Single pass, online learning; no training phase required
+ * - Constant routing cost per message (tree depth is fixed)
+ * - Each message is reduced to a template id plus its parameter tokens
+ * - Bounded number of clusters per leaf and in total; messages that would
+ *   need a new cluster beyond the limits are not templated
+ *
+ * Implementation notes:
+ * - Tokens containing digits are routed through the wildcard branch so that
+ *   variable leading values do not explode the tree.
+ * - Templates may become more general while parsing; {@link #getTemplate(int)}
+ *   always returns the current form.
+ * - Not thread-safe; use one instance per import.
+ *
+ * Copyright (c) 2013-2025 Thomas Haber
+ * All rights reserved.
+ *
+ */
+public class TemplateMiner {
+
+    // Wildcard token used for parameters
+    public static final String WILDCARD = "<*>";
+    // Default maximum number of clusters per leaf
+    public static final int DEFAULT_MAX_CLUSTERS = 64;
+    // Default maximum number of clusters in total
+    public static final int DEFAULT_MAX_TEMPLATES = 4096;
+
+    // Tree depth (incl. root and length level)
+    private final int depth;
+    // Minimum similarity to join a cluster
+    private final double similarity;
+    // Maximum number of children per inner node
+    private final int maxChildren;
+    // Maximum number of clusters per leaf (bounds the linear leaf scan)
+    private final int maxClusters;
+    // Maximum number of clusters in total
+    private final int maxTemplates;
+
+    // Length level of the tree
+    private final Map<Integer, Node> root = new HashMap<>();
+    // All clusters by id
+    private final List<Cluster> clusters = new ArrayList<>();
+
+    // Reusable token buffer
+    private final List<String> tokens = new ArrayList<>();
+    // Parameters of the last added message
+    private final List<String> parameters = new ArrayList<>();
+
+    /**
+     * Tree node; inner nodes have children, leaf nodes have clusters.
+     */
+    private static class Node {
+        Map<String, Node> children;
+        List<Cluster> clusters;
+    }
+
+    /**
+     * Template cluster.
+     */
+    private static class Cluster {
+        final int id;
+        final String[] tokens;
+        String template;
+
+        Cluster(int id, String[] tokens) {
+            this.id = id;
+            this.tokens = tokens;
+        }
+    }
+
+    /**
+     * Constructs a TemplateMiner with default settings (depth 4, similarity 0.5, 100 children).
+     */
+    public TemplateMiner() {
+        this(4, 0.5, 100);
+    }
+
+    /**
+     * Constructs a TemplateMiner.
+     *
+     * @param depth the tree depth (minimum 3)
+     * @param similarity the minimum similarity (0..1) to join an existing template
+     * @param maxChildren the maximum number of children per tree node
+     */
+    public TemplateMiner(int depth, double similarity, int maxChildren) {
+        this(depth, similarity, maxChildren, DEFAULT_MAX_CLUSTERS, DEFAULT_MAX_TEMPLATES);
+    }
+
+    /**
+     * Constructs a TemplateMiner.
+     *
+     * @param depth the tree depth (minimum 3)
+     * @param similarity the minimum similarity (0..1) to join an existing template
+     * @param maxChildren the maximum number of children per tree node
+     * @param maxClusters the maximum number of clusters per leaf
+     * @param maxTemplates the maximum number of clusters in total
+     */
+    public TemplateMiner(int depth, double similarity, int maxChildren, int maxClusters, int maxTemplates) {
+        this.depth = Math.max(3, depth);
+        this.similarity = similarity;
+        this.maxChildren = Math.max(2, maxChildren);
+        this.maxClusters = Math.max(1, maxClusters);
+        this.maxTemplates = Math.max(1, maxTemplates);
+    }
+
+    /**
+     * Adds a message and returns the id of its template.
+     * The parameter tokens of the message are available with {@link #getParameters()} until the next call.
+     *
+     * @param message the message text
+     * @return the template id, or -1 if the message is empty or no cluster is left for it
+     */
+    public int add(String message) {
+        parameters.clear();
+        tokenize(message);
+        if (tokens.isEmpty())
+            return -1;
+
+        // route
+        Node leaf = leaf(tokens);
+
+        // best match
+        Cluster best = null;
+        double bestSim = -1;
+        int bestParams = -1;
+        for (Cluster cluster : leaf.clusters) {
+            int equal = 0;
+            int params = 0;
+            for (int n = 0; n < cluster.tokens.length; n++) {
+                String t = cluster.tokens[n];
+                if (t == WILDCARD)
+                    params++;
+                else if (t.equals(tokens.get(n)))
+                    equal++;
+            }
+            double sim = (double) equal / cluster.tokens.length;
+            if (sim > bestSim || (sim == bestSim && params > bestParams)) {
+                best = cluster;
+                bestSim = sim;
+                bestParams = params;
+            }
+        }
+
+        // join or create
+        if (best != null && bestSim >= similarity) {
+            for (int n = 0; n < best.tokens.length; n++) {
+                String t = best.tokens[n];
+                if (t != WILDCARD && !t.equals(tokens.get(n))) {
+                    best.tokens[n] = WILDCARD;
+                    best.template = null;
+                }
+            }
+        } else if (leaf.clusters.size() >= maxClusters || clusters.size() >= maxTemplates) {
+            return -1;
+        } else {
+            best = new Cluster(clusters.size(), tokens.toArray(new String[tokens.size()]));
+            clusters.add(best);
+            leaf.clusters.add(best);
+        }
+
+        // parameters
+        for (int n = 0; n < best.tokens.length; n++)
+            if (best.tokens[n] == WILDCARD)
+                parameters.add(tokens.get(n));
+        return best.id;
+    }
+
+    /**
+     * Returns the parameters of the last added message.
+     *
+     * @return the parameter tokens (reused; copy if needed)
+     */
+    public List<String> getParameters() {
+        return parameters;
+    }
+
+    /**
+     * Returns the current template text for the given id.
+     *
+     * @param id the template id
+     * @return the template text, or null if the id is unknown
+     */
+    public String getTemplate(int id) {
+        if (id < 0 || id >= clusters.size())
+            return null;
+        Cluster cluster = clusters.get(id);
+        if (cluster.template == null)
+            cluster.template = String.join(" ", cluster.tokens);
+        return cluster.template;
+    }
+
+    /**
+     * Returns the number of templates.
+     *
+     * @return the number of templates
+     */
+    public int size() {
+        return clusters.size();
+    }
+
+    // ========================================================================================================================
+    // Internal
+    // ========================================================================================================================
+
+    private void tokenize(String message) {
+        tokens.clear();
+        if (message == null)
+            return;
+        int len = message.length();
+        int pos = 0;
+        while (pos < len) {
+            while (pos < len && Character.isWhitespace(message.charAt(pos)))
+                pos++;
+            int start = pos;
+            while (pos < len && !Character.isWhitespace(message.charAt(pos)))
+                pos++;
+            if (pos > start)
+                tokens.add(message.substring(start, pos));
+        }
+    }
+
+    private Node leaf(List<String> tokens) {
+        Node node = root.get(tokens.size());
+        if (node == null) {
+            node = new Node();
+            root.put(tokens.size(), node);
+        }
+        int levels = Math.min(depth - 2, tokens.size());
+        for (int level = 0; level < levels; level++) {
+            String token = tokens.get(level);
+            String key = hasDigit(token) ? WILDCARD : token;
+            if (node.children == null)
+                node.children = new HashMap<>();
+            Node child = node.children.get(key);
+            if (child == null) {
+                if (key != WILDCARD && node.children.size() >= maxChildren - 1)
+                    key = WILDCARD;
+                child = node.children.get(key);
+                if (child == null) {
+                    child = new Node();
+                    node.children.put(key, child);
+                }
+            }
+            node = child;
+        }
+        if (node.clusters == null)
+            node.clusters = new ArrayList<>();
+        return node;
+    }
+
+    private static boolean hasDigit(String token) {
+        for (int n = 0; n < token.length(); n++)
+            if (Character.isDigit(token.charAt(n)))
+                return true;
+        return false;
+    }
+}
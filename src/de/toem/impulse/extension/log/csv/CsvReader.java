@@ -141,6 +141,11 @@ public class CsvReader extends AbstractSingleDomainRecordReader {
     protected String line = null;
     protected int lineNo = 0;
 
+    // powers of ten for allocation-free decimal parsing
+    private static final double[] POW10 = { 1e0, 1e1, 1e2, 1e3, 1e4, 1e5, 1e6, 1e7, 1e8, 1e9, 1e10, 1e11, 1e12, 1e13, 1e14, 1e15 };
+    // result of parseDomainValue/parseDomain2Value if there is no domain value
+    protected static final long NO_POSITION = Long.MIN_VALUE;
+
     // ========================================================================================================================
     // Constructor
     // ========================================================================================================================
@@ -491,29 +496,35 @@ public class CsvReader extends AbstractSingleDomainRecordReader {
         if (count < maxSource)
             throw new ParseException(-1, "Invalid no of values");
 
-        // position
-        Long position = null;
-        Long position2 = null;
+        // position (primitive; hasPosition/hasPosition2 flag presence)
+        long position = 0;
+        boolean hasPosition = false;
+        long position2 = 0;
+        boolean hasPosition2 = false;
         if (domainMode != CsvPreference.DOMAIN_UNDEFINED) {
             final String domainText = Utils.trim((domainSource > 0 && domainSource <= maxSource) ? splitted[domainSource] : null);
-            position = parseDomain(domainText);
+            position = parseDomainValue(domainText);
+            hasPosition = position != NO_POSITION;
         }
         if (domain2Mode != CsvPreference.DOMAIN_UNDEFINED) {
             final String domainText = Utils.trim((domain2Source > 0 && domain2Source <= maxSource) ? splitted[domain2Source] : null);
-            position2 = parseDomain2(domainText);
+            position2 = parseDomain2Value(domainText);
+            hasPosition2 = position2 != NO_POSITION;
         }
 
         if (sepSignals != null || structSignal != null) {
 
             // relative domain modes
-            if (domainMode == CsvPreference.DOMAIN_RECORD_INC || domainMode == CsvPreference.DOMAIN_SIGNAL_INC)
+            if (domainMode == CsvPreference.DOMAIN_RECORD_INC || domainMode == CsvPreference.DOMAIN_SIGNAL_INC) {
                 position = !opened ? 0 : current + 1;
+                hasPosition = true;
+            }
 
             // has position
-            if (position != null) {
+            if (hasPosition) {
 
                 // add extension
-                if (position2 != null)
+                if (hasPosition2)
                     position += position2;
 
                 // offset
@@ -542,19 +553,19 @@ public class CsvReader extends AbstractSingleDomainRecordReader {
                             switch (type[n]) {
                             case CsvPreference.SIGNAL_FLOAT:
                                 val = val.replace(",", ".").replace(" ", "").trim();
-                                ((IFloatSamplesWriter) getWriter(sepSignals[n])).write((long) position, false, Utils.parseDouble(val, 0));
+                                ((IFloatSamplesWriter) getWriter(sepSignals[n])).write(position, false, Utils.parseDouble(val, 0));
                                 break;
                             case CsvPreference.SIGNAL_INTEGER:
                                 val = val.replace(".", "").replace(" ", "").trim();
-                                ((IIntegerSamplesWriter) getWriter(sepSignals[n])).write((long) position, false, Utils.parseLong(val, 0));
+                                ((IIntegerSamplesWriter) getWriter(sepSignals[n])).write(position, false, Utils.parseLong(val, 0));
                                 break;
                             case CsvPreference.SIGNAL_TEXT:
                                 val = val.trim();
-                                ((ITextSamplesWriter) getWriter(sepSignals[n])).write((long) position, false, val);
+                                ((ITextSamplesWriter) getWriter(sepSignals[n])).write(position, false, val);
                                 break;
                             case CsvPreference.SIGNAL_ENUMERATION:
                                 val = val.trim();
-                                ((IEventSamplesWriter) getWriter(sepSignals[n])).write((long) position, false, val);
+                                ((IEventSamplesWriter) getWriter(sepSignals[n])).write(position, false, val);
                                 break;
                             // case CsvPreference.SIGNAL_DOMAIN:
                             //
@@ -593,7 +604,7 @@ public class CsvReader extends AbstractSingleDomainRecordReader {
                             structMembers[n].setValid(false);
                         }
                     }
-                    ((IStructSamplesWriter) getWriter(structSignal)).write((long) position, false, structMembers);
+                    ((IStructSamplesWriter) getWriter(structSignal)).write(position, false, structMembers);
                 }
 
                 changed(CHANGED_SIGNALS);
@@ -620,16 +631,19 @@ public class CsvReader extends AbstractSingleDomainRecordReader {
             if (logWriter != null) {
 
                 // relative domain modes
-                if (domainMode == CsvPreference.DOMAIN_RECORD_INC)
+                if (domainMode == CsvPreference.DOMAIN_RECORD_INC) {
                     position = !logWriter.isOpen() ? 0 : logWriter.getCurrent() + 1;
-                else if (domainMode == CsvPreference.DOMAIN_SIGNAL_INC)
+                    hasPosition = true;
+                } else if (domainMode == CsvPreference.DOMAIN_SIGNAL_INC) {
                     position = !opened ? 0 : current + 1;
+                    hasPosition = true;
+                }
 
                 // has position
-                if (position != null) {
+                if (hasPosition) {
 
                     // add extension
-                    if (position2 != null)
+                    if (hasPosition2)
                         position += position2;
 
                     // offset
@@ -684,185 +698,197 @@ public class CsvReader extends AbstractSingleDomainRecordReader {
         }
     }
 
-    protected Long parseDomain(String text) throws ParseException {
-
-        // domain value
-        Long position = null;
+    /**
+     * Parses the primary domain value; no boxing is involved.
+     *
+     * @param text the domain text (may be null)
+     * @return the position in the domain base or {@link #NO_POSITION} if there is none
+     * @throws ParseException if the text cannot be parsed
+     */
+    protected long parseDomainValue(String text) throws ParseException {
 
-        // date
         if (domainMode == CsvPreference.DOMAIN_FLOAT) {
-            try {
-                if (!Utils.isEmpty(text)) {
-                    String val = text.replace(",", ".").replace(" ", "").trim();
-                    double d = 0;
-                    if (domainValueUnit == null) {
-                        // need to parse unit
-                        int vl = val.length();
-                        boolean foundUnitLetters = false;
-                        while (vl > 0) {
-                            if (!Character.isLetter(val.charAt(vl - 1)))
-                                break;
-                            vl--;
-                            foundUnitLetters = true;
-                        }
-                        d = Double.parseDouble(val.substring(0, vl));
-                        if (foundUnitLetters) {
-                            IDomainBase domainValueUnit = DomainBases.parse( domainBase.getClazz(),val.substring(vl));
-                            if (domainValueUnit == null)
-                                throw new ParseException(0, "Invalid domain unit:" + val.substring(vl));
-                            position = (long) (d * domainValueUnit.toCommonBase(1) / domainBase.toCommonBase(1));
-                        } else
-                            position = (long) d;
-                    } else {
-                        d = Double.parseDouble(val);
-                        position = (long) (d * domainValueUnit.toCommonBase(1) / domainBase.toCommonBase(1));
-                    }
-                }
-
-            } catch (NumberFormatException e) {
-                throw new ParseException(0, "Invalid time format");
-            }
+            if (!Utils.isEmpty(text))
+                return parseFloatDomain(text, domainValueUnit);
         } else if (domainMode == CsvPreference.DOMAIN_INTEGER) {
-            try {
-                if (!Utils.isEmpty(text)) {
-                    String val = text.replaceAll("[\\.,: ]", "").trim();
-                    long l = 0;
-                    if (domainValueUnit == null) {
-                        // need to parse unit
-                        int vl = val.length();
-                        boolean foundUnitLetters = false;
-                        while (vl > 0) {
-                            if (!Character.isLetter(val.charAt(vl - 1)))
-                                break;
-                            vl--;
-                            foundUnitLetters = true;
-                        }
-                        l = Long.parseLong(val.substring(0, vl).trim());
-                        if (foundUnitLetters) {
-                            IDomainBase domainValueUnit = DomainBases.parse(domainBase.getClazz(), val.substring(vl));
-                            if (domainValueUnit == null)
-                                throw new ParseException(0, "Invalid domain unit:" + val.substring(vl));
-                            position = domainValueUnit.convertTo((domainBase), l);
-                        } else
-                            position = l;
-                    } else {
-                        l = Long.parseLong(val.trim());
-                        if (domainBase instanceof DateBase)
-                            position = domainValueUnit.convertTo(TimeBase.ms, l);
-                        else
-                            position = domainValueUnit.convertTo((domainBase), l);
-                    }
-                }
-
-            } catch (NumberFormatException e) {
-                throw new ParseException(0, "Invalid time format");
-            }
+            if (!Utils.isEmpty(text))
+                return parseIntegerDomain(text, domainValueUnit);
         } else if (domainMode == CsvPreference.DOMAIN_DATE && dateScanner != null) {
             try {
                 if (!Utils.isEmpty(text)) {
                     Date date = dateScanner.parse(text);
+                    long position;
                     if (domainBase instanceof TimeBase)
-                        position = TimeBase.ms.convertTo(domainBase, date.getTime());
+                        position = TimeBase.ms.convertTo(domainBase, date.getTime()).longValue();
                     else if (domainBase instanceof DateBase)
                         position = date.getTime();
                     else
                         throw new ParseException(0, "Invalid domain base for 'Date' mode. Use Time or Date.");
+                    return position;
                 }
             } catch (java.text.ParseException e) {
                 throw new ParseException(0, "Invalid date format");
             }
-        } else if (domainMode == CsvPreference.DOMAIN_RECORD_INC) {
-            position = null;
-        } else if (domainMode == CsvPreference.DOMAIN_SIGNAL_INC) {
-            position = null;
         } else if (domainMode == CsvPreference.DOMAIN_RECEPTION) {
+            long position;
             if (domainBase instanceof TimeBase)
-                position = TimeBase.ms.convertTo(domainBase, position = Utils.millies()).longValue();
+                position = TimeBase.ms.convertTo(domainBase, Utils.millies()).longValue();
             else if (domainBase instanceof DateBase)
                 position = Utils.millies();
             else
                 throw new ParseException(0, "Invalid domain base for 'Reception time' mode. Use Time or Date.");
+            return position;
+        }
+        return NO_POSITION;
+    }
+
+    /**
+     * Parses the secondary domain value; no boxing is involved.
+     *
+     * @param text the domain text (may be null)
+     * @return the position extension in the domain base or {@link #NO_POSITION} if there is none
+     * @throws ParseException if the text cannot be parsed
+     */
+    protected long parseDomain2Value(String text) throws ParseException {
+
+        if (domain2Mode == CsvPreference.DOMAIN_FLOAT) {
+            if (!Utils.isEmpty(text))
+                return parseFloatDomain(text, domain2ValueUnit);
+        } else if (domain2Mode == CsvPreference.DOMAIN_INTEGER) {
+            if (!Utils.isEmpty(text))
+                return parseIntegerDomain(text, domain2ValueUnit);
         }
+        return NO_POSITION;
+    }
 
-        return position;
+    protected Long parseDomain(String text) throws ParseException {
+        long position = parseDomainValue(text);
+        return position != NO_POSITION ? position : null;
     }
 
     protected Long parseDomain2(String text) throws ParseException {
+        long position = parseDomain2Value(text);
+        return position != NO_POSITION ? position : null;
+    }
 
-        // domain value
-        Long position = null;
+    private long parseFloatDomain(String text, IDomainBase valueUnit) throws ParseException {
+        try {
+            int end = valueUnit == null ? unitStart(text) : text.length();
+            double d = parseDouble(text, end);
+            long position;
+            if (valueUnit == null && end < text.length()) {
+                String unit = text.substring(end).replace(" ", "").trim();
+                IDomainBase domainValueUnit = DomainBases.parse(domainBase.getClazz(), unit);
+                if (domainValueUnit == null)
+                    throw new ParseException(0, "Invalid domain unit:" + unit);
+                position = (long) (d * domainValueUnit.toCommonBase(1) / domainBase.toCommonBase(1));
+            } else if (valueUnit == null)
+                position = (long) d;
+            else
+                position = (long) (d * valueUnit.toCommonBase(1) / domainBase.toCommonBase(1));
+            return position;
+        } catch (NumberFormatException e) {
+            throw new ParseException(0, "Invalid time format");
+        }
+    }
 
-        // date
-        if (domain2Mode == CsvPreference.DOMAIN_FLOAT) {
-            try {
-                if (!Utils.isEmpty(text)) {
-                    String val = text.replace(",", ".").replace(" ", "").trim();
-                    double d = 0;
-                    if (domain2ValueUnit == null) {
-                        // need to parse unit
-                        int vl = val.length();
-                        boolean foundUnitLetters = false;
-                        while (vl > 0) {
-                            if (!Character.isLetter(val.charAt(vl - 1)))
-                                break;
-                            vl--;
-                            foundUnitLetters = true;
-                        }
-                        d = Double.parseDouble(val.substring(0, vl));
-                        if (foundUnitLetters) {
-                            IDomainBase domainValueUnit = DomainBases.parse( domainBase.getClazz(),val.substring(vl));
-                            if (domainValueUnit == null)
-                                throw new ParseException(0, "Invalid domain unit:" + val.substring(vl));
-                            position = (long) (d * domainValueUnit.toCommonBase(1) / domainBase.toCommonBase(1));
-                        } else
-                            position = (long) d;
-                    } else {
-                        d = Double.parseDouble(val);
-                        position = (long) (d * domain2ValueUnit.toCommonBase(1) / domainBase.toCommonBase(1));
-                    }
-                }
+    private long parseIntegerDomain(String text, IDomainBase valueUnit) throws ParseException {
+        try {
+            int end = valueUnit == null ? unitStart(text) : text.length();
+            long l = parseLong(text, end);
+            long position;
+            if (valueUnit == null && end < text.length()) {
+                String unit = text.substring(end).replace(" ", "").trim();
+                IDomainBase domainValueUnit = DomainBases.parse(domainBase.getClazz(), unit);
+                if (domainValueUnit == null)
+                    throw new ParseException(0, "Invalid domain unit:" + unit);
+                position = domainValueUnit.equals(domainBase) ? l : domainValueUnit.convertTo((domainBase), l).longValue();
+            } else if (valueUnit == null)
+                position = l;
+            else if (domainBase instanceof DateBase)
+                position = valueUnit.equals(TimeBase.ms) ? l : valueUnit.convertTo(TimeBase.ms, l).longValue();
+            else
+                position = valueUnit.equals(domainBase) ? l : valueUnit.convertTo((domainBase), l).longValue();
+            return position;
+        } catch (NumberFormatException e) {
+            throw new ParseException(0, "Invalid time format");
+        }
+    }
 
-            } catch (NumberFormatException e) {
-                throw new ParseException(0, "Invalid time format");
-            }
-        } else if (domain2Mode == CsvPreference.DOMAIN_INTEGER) {
-            try {
-                if (!Utils.isEmpty(text)) {
-                    String val = text.replaceAll("[\\.,: ]", "").trim();
-                    long l = 0;
-                    if (domain2ValueUnit == null) {
-                        // need to parse unit
-                        int vl = val.length();
-                        boolean foundUnitLetters = false;
-                        while (vl > 0) {
-                            if (!Character.isLetter(val.charAt(vl - 1)))
-                                break;
-                            vl--;
-                            foundUnitLetters = true;
-                        }
-                        l = Long.parseLong(val.substring(0, vl).trim());
-                        if (foundUnitLetters) {
-                            IDomainBase domainValueUnit = DomainBases.parse( domainBase.getClazz(),val.substring(vl));
-                            if (domainValueUnit == null)
-                                throw new ParseException(0, "Invalid domain unit:" + val.substring(vl));
-                            position = domainValueUnit.convertTo((domainBase), l);
-                        } else
-                            position = l;
-                    } else {
-                        l = Long.parseLong(val.trim());
-                        if (domainBase instanceof DateBase)
-                            position = domain2ValueUnit.convertTo(TimeBase.ms, l);
-                        else
-                            position = domain2ValueUnit.convertTo((domainBase), l);
-                    }
-                }
+    /**
+     * Returns the start of a trailing unit (letters, optionally separated by blanks)
+     * or the text length if there is no unit.
+     */
+    private static int unitStart(String text) {
+        int end = text.length();
+        while (end > 0 && text.charAt(end - 1) <= ' ')
+            end--;
+        int start = end;
+        while (start > 0 && (Character.isLetter(text.charAt(start - 1)) || text.charAt(start - 1) == ' '))
+            start--;
+        while (start < end && text.charAt(start) == ' ')
+            start++;
+        return start < end ? start : text.length();
+    }
 
-            } catch (NumberFormatException e) {
-                throw new ParseException(0, "Invalid time format");
-            }
+    /**
+     * Parses a decimal number from text[0..end) ignoring blanks and accepting ',' or
+     * '.' as decimal separator. Short numbers are parsed without allocation; others
+     * fall back to {@link Double#parseDouble(String)}.
+     */
+    static double parseDouble(String text, int end) {
+        long mantissa = 0;
+        int digits = 0;
+        int decimals = -1;
+        boolean negative = false;
+        boolean signed = false;
+        for (int n = 0; n < end; n++) {
+            char c = text.charAt(n);
+            if (c >= '0' && c <= '9') {
+                if (++digits > 15)
+                    return Double.parseDouble(text.substring(0, end).replace(",", ".").replace(" ", "").trim());
+                mantissa = mantissa * 10 + (c - '0');
+                if (decimals >= 0)
+                    decimals++;
+            } else if ((c == '.' || c == ',') && decimals < 0)
+                decimals = 0;
+            else if ((c == '-' || c == '+') && digits == 0 && decimals < 0 && !signed) {
+                negative = c == '-';
+                signed = true;
+            } else if (c > ' ')
+                return Double.parseDouble(text.substring(0, end).replace(",", ".").replace(" ", "").trim());
         }
+        if (digits == 0)
+            throw new NumberFormatException();
+        double d = decimals > 0 ? mantissa / POW10[decimals] : mantissa;
+        return negative ? -d : d;
+    }
 
-        return position;
+    /**
+     * Parses an integer from text[0..end) ignoring blanks and the separators '.', ','
+     * and ':'. Numbers with up to 18 digits are parsed without allocation; others fall
+     * back to {@link Long#parseLong(String)}.
+     */
+    static long parseLong(String text, int end) {
+        long value = 0;
+        int digits = 0;
+        boolean negative = false;
+        boolean signed = false;
+        for (int n = 0; n < end; n++) {
+            char c = text.charAt(n);
+            if (c >= '0' && c <= '9') {
+                if (++digits > 18)
+                    return Long.parseLong(text.substring(0, end).replaceAll("[\\.,: ]", "").trim());
+                value = value * 10 + (c - '0');
+            } else if ((c == '-' || c == '+') && digits == 0 && !signed) {
+                negative = c == '-';
+                signed = true;
+            } else if (c != '.' && c != ',' && c != ':' && c > ' ')
+                return Long.parseLong(text.substring(0, end).replaceAll("[\\.,: ]", "").trim());
+        }
+        if (digits == 0)
+            throw new NumberFormatException();
+        return negative ? -value : value;
     }
 
     protected int parseTags(String text) {
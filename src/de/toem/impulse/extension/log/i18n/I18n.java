@@ -72,6 +72,7 @@ public class I18n extends de.toem.impulse.i18n.I18n {
 
     public static String PatternConfigurationDialog_UseFirstPattern = "First enabled pattern";
     public static String PatternConfigurationDialog_TestLines = "Test Log\nLines:";
+    public static String PatternConfigurationDialog_ExtractRules = "Extract\nRules:";
 
     public static String XmlLogConfiguration_ActionNew = "Start new log sample";
     public static String XmlLogConfiguration_ActionAdd = "Add to previous sample ";
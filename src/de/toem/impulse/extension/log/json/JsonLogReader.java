@@ -13,10 +13,13 @@ import com.fasterxml.jackson.core.JsonFactory;
 import com.fasterxml.jackson.core.JsonParser;
 import com.fasterxml.jackson.core.JsonToken;
 
+import de.toem.impulse.extension.log.common.AbstractPipelineLogReader;
+import de.toem.impulse.extension.log.common.LogRecordCache;
 import de.toem.impulse.extension.log.i18n.I18n;
 import de.toem.impulse.serializer.AbstractSingleDomainRecordReader;
 import de.toem.impulse.usecase.logging.AbstractLogOption;
 import de.toem.impulse.usecase.logging.AbstractLogReader;
+import de.toem.impulse.usecase.logging.Log;
 import de.toem.toolkits.core.Utils;
 import de.toem.toolkits.pattern.element.CellAnnotation;
 import de.toem.toolkits.pattern.element.ICell;
@@ -47,9 +50,11 @@ import de.toem.toolkits.utils.serializer.ParseException;
  * - Support for nested JSON structures with stack-based parsing
  * - Flexible field mapping from JSON properties to impulse signals
  * - Configurable domain, name, and member extraction from JSON data
+ * - Optional record cache that replays the parsed messages of unchanged files instead of parsing
+ * - Optional reorder stage that writes slightly out-of-order messages in position order per signal
  *
  * Implementation notes:
- * - This reader extends {@link de.toem.impulse.usecase.logging.AbstractLogReader}
+ * - This reader extends {@link AbstractPipelineLogReader} (shared message pipeline)
  *   and follows the project property-model conventions for configuration.
  * - Uses {@link com.fasterxml.jackson.core.JsonParser} for efficient JSON streaming
  * - Maintains parsing state with stacks for nested objects and attributes
@@ -61,7 +66,7 @@ import de.toem.toolkits.utils.serializer.ParseException;
  *
  */
 @RegistryAnnotation(annotation = JsonLogReader.Annotation.class)
-public class JsonLogReader extends AbstractLogReader {
+public class JsonLogReader extends AbstractPipelineLogReader {
     public static class Annotation extends AbstractSingleDomainRecordReader.Annotation {
         public static final Class<? extends ICell> multiton = Preference.class;
         public static final String id = "reader.log.json";
@@ -101,7 +106,7 @@ public class JsonLogReader extends AbstractLogReader {
      */
     public JsonLogReader(ISerializerDescriptor descriptor, String contentName, String contentType, String cellType, String configuration,
             String[][] properties, InputStream in) {
-        super(descriptor, configuration, properties, getPropertyModel(descriptor, null), in);
+        super(descriptor, contentName, configuration, properties, getPropertyModel(descriptor, null), in);
     }
 
     // ========================================================================================================================
@@ -223,7 +228,14 @@ public class JsonLogReader extends AbstractLogReader {
      * @return configured PropertyModel
      */
     static public PropertyModel getPropertyModel(ISerializerDescriptor descriptor, Object context) {
-        return AbstractLogReader.getPropertyModel(descriptor, context);
+        return AbstractLogReader.getPropertyModel(descriptor, context)
+                .add("nameInclude", "", null, null, null, "Include Names").add("nameExclude", "", null, null, null, "Exclude Names")
+                .add("messageTemplates", false, null, "Mine message templates")
+                .add("templateSimilarity", 50, null, null, null, "Template Similarity (%)")
+                .add("templateSignal", DEFAULT_TEMPLATE_SIGNAL, null, null, "Template Signal", null, null)
+                .add("cacheRecords", false, null, "Cache parsed records").add("recordCacheSize", 1024, null, null, null, "Record Cache Size (MB)")
+                .add("reorderWindow", 0, null, null, null, "Reorder Window (domain units)").add("reorderEntries", 0, null, null, null, "Reorder Entries")
+                .add("firstScreenMessages", 0, null, null, null, "First Screen (messages)").add("firstScreenSpan", 0, null, null, null, "First Screen Span (domain units)");
     }
 
     // ========================================================================================================================
@@ -257,14 +269,31 @@ public class JsonLogReader extends AbstractLogReader {
      * @throws IOException on IO errors
      */
     @Override
-    protected void parseLogs(IProgress progress, InputStream in) throws ParseException, IOException {
+    protected void parseContent(IProgress progress, InputStream in) throws ParseException, IOException {
 
         JsonFactory jfactory = new JsonFactory();
         JsonParser jsonReader = jfactory.createParser(new InputStreamReader(in, charSet));
         closable = jsonReader;
 
+        // message templates, name filter, reorder stage
+        initPipeline();
+
         // extract log data
         LogMessage message = new LogMessage();
+
+        // record cache
+        recordCache = openRecordCache();
+        if (recordCache != null && recordCache.isReplaying()) {
+            try {
+                if (!replayMessages(progress, message) && (progress == null || !progress.isCanceled()))
+                    throw new ParseException(-1, "Invalid record cache");
+                flushReorder();
+            } finally {
+                closeRecordCache(false);
+            }
+            return;
+        }
+
         Stack<JsonOptionParser> parserStack = new Stack<>();
         Stack<Map<String, String>> attributeStack = new Stack<>();
         Stack<String> pathStack = new Stack<>();
@@ -355,11 +384,36 @@ public class JsonLogReader extends AbstractLogReader {
                 }
                 nextToken = jsonReader.nextToken();
             }
+            flushReorder();
         } catch (Throwable e) {
+            closeRecordCache(false);
             if (e instanceof ParseException)
                 throw (ParseException) e;
             throw new ParseException("Could not parse JSON structure", e);
         }
+        closeRecordCache(progress == null || !progress.isCanceled());
+    }
+
+    /**
+     * Returns the value index of the {@link Log#MESSAGE} member of an option parser.
+     *
+     * @param parser the option parser
+     * @return the value index or -1 if none
+     */
+    @Override
+    protected int getMessageIndex(AbstractOptionParser parser) {
+        return ((JsonOptionParser) parser).messageIndex;
+    }
+
+    /**
+     * Returns the hash of the option configuration of a JSON option parser.
+     *
+     * @param parser the option parser
+     * @return the hash
+     */
+    @Override
+    protected long getOptionHash(AbstractOptionParser parser) {
+        return ((JsonOptionParser) parser).optionHash;
     }
 
     class JsonOptionParser extends AbstractOptionParser {
@@ -382,6 +436,10 @@ public class JsonLogReader extends AbstractLogReader {
         protected String name2Value;
         // Tag value identifier
         protected String tagValue;
+        // Value index of the message member (-1 if none)
+        int messageIndex = -1;
+        // Hash of the option configuration (record cache key)
+        final long optionHash;
 
         /**
          * Constructs a JsonOptionParser for the provided option.
@@ -420,18 +478,24 @@ public class JsonLogReader extends AbstractLogReader {
                     String id = option.getSourceIdentifier(n);
                     sourceValues[n] = id;
                     if (n == domainSource)
-                        domainValue = option.getSourceIdentifier(n);
+                        domainValue = id;
                     if (n == domain2Source)
-                        domain2Value = option.getSourceIdentifier(n);
+                        domain2Value = id;
                     if (n == name1Source)
-                        name1Value = option.getSourceIdentifier(n);
+                        name1Value = id;
                     if (n == name2Source)
-                        name2Value = option.getSourceIdentifier(n);
+                        name2Value = id;
                     if (n == tagSource)
-                        tagValue = option.getSourceIdentifier(n);
+                        tagValue = id;
 
                 }
             }
+
+            // message member
+            for (int n = JsonLogOption.MEMBER_MIN; n <= JsonLogOption.MEMBER_MAX; n++)
+                if (memberIndex[n] >= 0 && Log.MESSAGE.equals(Utils.trim((String) option.getValue("member" + n, String.class))))
+                    messageIndex = memberIndex[n];
+            optionHash = LogRecordCache.hash(0, option);
         }
 
         /**
@@ -465,7 +529,7 @@ public class JsonLogReader extends AbstractLogReader {
                 return;
 
             if (action == AbstractLogOption.ACTION_START && !message.isEmpty()) {
-                write(message);
+                writeMessage(message);
                 message.clear();
             }
 
@@ -534,8 +598,9 @@ public class JsonLogReader extends AbstractLogReader {
                 changed |= true;
             }
 
+            boolean excluded = isExcluded(message);
             // members
-            for (int n = JsonLogOption.MEMBER_MIN; n <= JsonLogOption.MEMBER_MAX && n <= maxMemberSource; n++) {
+            for (int n = JsonLogOption.MEMBER_MIN; !excluded && n <= JsonLogOption.MEMBER_MAX && n <= maxMemberSource; n++) {
                 int widx = memberIndex[n];
                 if ((widx >= 0 || n == tagSource)) {
                     String name = sourceValues[n];
@@ -565,7 +630,7 @@ public class JsonLogReader extends AbstractLogReader {
                 message.setEmpty(false);
 
             if (action == AbstractLogOption.ACTION_TERMINATE && !message.isEmpty()) {
-                write(message);
+                writeMessage(message);
                 message.clear();
             }
         }
@@ -0,0 +1,253 @@
+package de.toem.impulse.extension.log.pattern;
+
+import java.io.BufferedWriter;
+import java.io.Closeable;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Reader;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Line reader with a bounded materialized line length.
+ *
+ * This reader replaces {@link java.io.BufferedReader#readLine()} for log files
+ * that may contain extremely long lines (e.g. large JSON documents dumped on a
+ * single line). Only the first maxLength characters of a line are materialized;
+ * the remainder is either dropped or spilled to a temporary file. The returned
+ * line is the bounded prefix only; a short note describing the remainder is
+ * available with {@link #getOverflowNote()}, so patterns are matched against the
+ * original text and the note can be attached to the parsed message.
+ *
+ * Implementation notes:
+ * - Line terminators are "\n", "\r" and "\r\n", as for BufferedReader.
+ * - A maxLength of 0 or less means unlimited; then the reader behaves like
+ *   BufferedReader.
+ * - Spill offsets are character offsets into the UTF-8 spill file; each
+ *   remainder is terminated by a line feed.
+ * - The spill file is created on demand and deleted when the reader is closed
+ *   (at the end of the import).
+ * - Offsets count the characters consumed from the source, including line
+ *   terminators; {@link #skip(long)} continues reading at such an offset.
+ *
+ * Copyright (c) 2013-2025 Thomas Haber
+ * All rights reserved.
+ *
+ */
+public class BoundedLineReader implements Closeable {
+
+    // Source
+    private final Reader in;
+    // Maximum materialized length (0 or less for unlimited)
+    private final int maxLength;
+    // Spill remainders into a file (otherwise truncate)
+    private final boolean spill;
+
+    // Read buffer
+    private final char[] buffer = new char[1 << 16];
+    private int pos;
+    private int limit;
+    private boolean skipLF;
+    // Characters read before the current buffer content
+    private long filled;
+    // Offset of the start of the last line
+    private long lineOffset;
+    // Current line
+    private final StringBuilder builder = new StringBuilder();
+    // Characters beyond the maximum length of the current line
+    private long overflow;
+
+    // Spill file and writer (created on demand)
+    private File spillFile;
+    private Writer spillWriter;
+    // Characters written to the spill file
+    private long spillOffset;
+    // Spill offset of the current line remainder
+    private long remainderOffset;
+
+    /**
+     * Constructs a BoundedLineReader.
+     *
+     * @param in the source reader
+     * @param maxLength the maximum materialized line length (0 or less for unlimited)
+     * @param spill true to spill line remainders into a temporary file; false to drop them
+     */
+    public BoundedLineReader(Reader in, int maxLength, boolean spill) {
+        this.in = in;
+        this.maxLength = maxLength;
+        this.spill = spill;
+    }
+
+    /**
+     * Reads the next line. Lines longer than the maximum length are cut (see
+     * {@link #getOverflowNote()}).
+     *
+     * @return the line or null at the end of the stream
+     * @throws IOException on read errors
+     */
+    public String readLine() throws IOException {
+        builder.setLength(0);
+        overflow = 0;
+        remainderOffset = spillOffset;
+        lineOffset = filled + pos;
+        boolean any = false;
+        while (true) {
+            if (pos >= limit) {
+                filled += limit;
+                limit = in.read(buffer, 0, buffer.length);
+                pos = 0;
+                if (limit <= 0) {
+                    limit = 0;
+                    return any ? finish() : null;
+                }
+            }
+            if (skipLF) {
+                skipLF = false;
+                if (buffer[pos] == '\n') {
+                    pos++;
+                    continue;
+                }
+            }
+            any = true;
+            int start = pos;
+            while (pos < limit) {
+                char c = buffer[pos];
+                if (c == '\n' || c == '\r')
+                    break;
+                pos++;
+            }
+            append(start, pos - start);
+            if (pos < limit) {
+                if (buffer[pos++] == '\r')
+                    skipLF = true;
+                return finish();
+            }
+        }
+    }
+
+    /**
+     * Skips the given number of characters (e.g. to continue at an offset returned
+     * by {@link #getOffset()}).
+     *
+     * @param chars the number of characters to skip
+     * @throws IOException on read errors
+     */
+    public void skip(long chars) throws IOException {
+        char last = 0;
+        while (chars > 0) {
+            if (pos >= limit) {
+                filled += limit;
+                limit = in.read(buffer, 0, buffer.length);
+                pos = 0;
+                if (limit <= 0) {
+                    limit = 0;
+                    break;
+                }
+            }
+            int n = (int) Math.min(chars, limit - pos);
+            pos += n;
+            chars -= n;
+            last = buffer[pos - 1];
+        }
+        skipLF = last == '\r';
+    }
+
+    /**
+     * Returns the number of characters consumed so far.
+     *
+     * @return the offset behind the last line
+     */
+    public long getOffset() {
+        return filled + pos;
+    }
+
+    /**
+     * Returns the offset of the start of the last line.
+     *
+     * @return the line offset
+     */
+    public long getLineOffset() {
+        return lineOffset;
+    }
+
+    /**
+     * Returns the number of characters of the last line beyond the maximum length.
+     *
+     * @return the number of dropped or spilled characters
+     */
+    public long getOverflow() {
+        return overflow;
+    }
+
+    /**
+     * Returns the note describing the remainder of the last line: " [+N chars]"
+     * (truncate) or " [+N chars in FILE at OFFSET]" (spill).
+     *
+     * @return the note or null if the last line has not been cut
+     */
+    public String getOverflowNote() {
+        if (overflow == 0)
+            return null;
+        if (spill && spillWriter != null)
+            return " [+" + overflow + " chars in " + spillFile.getPath() + " at " + remainderOffset + "]";
+        return " [+" + overflow + " chars]";
+    }
+
+    /**
+     * Returns the spill file, or null if nothing has been spilled.
+     *
+     * @return the spill file
+     */
+    public File getSpillFile() {
+        return spillFile;
+    }
+
+    /**
+     * Closes the source and deletes the spill file.
+     */
+    @Override
+    public void close() throws IOException {
+        try {
+            if (spillWriter != null)
+                spillWriter.close();
+        } finally {
+            spillWriter = null;
+            if (spillFile != null)
+                spillFile.delete();
+            in.close();
+        }
+    }
+
+    // ========================================================================================================================
+    // Internal
+    // ========================================================================================================================
+
+    private void append(int start, int length) throws IOException {
+        int room = maxLength > 0 ? Math.max(0, maxLength - builder.length()) : length;
+        int keep = Math.min(room, length);
+        builder.append(buffer, start, keep);
+        if (keep < length) {
+            overflow += length - keep;
+            if (spill) {
+                if (spillWriter == null) {
+                    spillFile = File.createTempFile("impulse-long-lines-", ".txt");
+                    spillFile.deleteOnExit();
+                    spillWriter = new BufferedWriter(new OutputStreamWriter(new FileOutputStream(spillFile), StandardCharsets.UTF_8), 1 << 16);
+                    remainderOffset = 0;
+                }
+                spillWriter.write(buffer, start + keep, length - keep);
+                spillOffset += length - keep;
+            }
+        }
+    }
+
+    private String finish() throws IOException {
+        if (overflow > 0 && spill && spillWriter != null) {
+            spillWriter.write('\n');
+            spillOffset++;
+        }
+        return builder.toString();
+    }
+}
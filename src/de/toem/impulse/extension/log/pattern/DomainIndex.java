@@ -0,0 +1,168 @@
+package de.toem.impulse.extension.log.pattern;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.charset.Charset;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.function.Function;
+
+/**
+ * Sparse index from domain positions to file offsets of a line-oriented log.
+ *
+ * The index is built by a skim pass: at every step (e.g. 256 KB) the file is
+ * sampled, the first line that starts a message is located and only its
+ * domain value (e.g. the time-stamp group) is parsed. A windowed import then
+ * seeks directly to the sample before the window start instead of parsing the
+ * file from the beginning.
+ *
+ * Key features:
+ * - Reads only a small block per sample, not the whole file
+ * - Indexes are kept in a small LRU per file state and configuration, so
+ *   repeated window imports of the same file skip the skim pass
+ * - Tolerates slightly out-of-order positions (seeks one sample further back)
+ *
+ * Implementation notes:
+ * - Offsets are byte offsets of line starts; only charsets with a single-byte
+ *   line feed are supported.
+ * - Compressed files cannot be indexed; then no index is returned.
+ *
+ * Copyright (c) 2013-2025 Thomas Haber
+ * All rights reserved.
+ *
+ */
+public class DomainIndex {
+
+    // Default sample step in bytes
+    public static final long DEFAULT_STEP = 256 * 1024;
+    // Size of a sampled block
+    private static final int BLOCK = 1 << 16;
+    // Maximum number of cached indexes
+    private static final int MAX_CACHED = 16;
+
+    // Cached indexes by file state and configuration (access order)
+    private static final Map<String, DomainIndex> cache = new LinkedHashMap<String, DomainIndex>(16, 0.75f, true) {
+        private static final long serialVersionUID = 1L;
+
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, DomainIndex> eldest) {
+            return size() > MAX_CACHED;
+        }
+    };
+
+    // Positions of the samples
+    private long[] positions = new long[256];
+    // Byte offsets of the samples
+    private long[] offsets = new long[256];
+    // Number of samples
+    private int size;
+
+    private DomainIndex() {
+    }
+
+    /**
+     * Returns the index of the given file, building it with a skim pass if it is not cached.
+     *
+     * @param file the log file
+     * @param charset the charset of the file
+     * @param configurationHash hash of the patterns and domain configuration
+     * @param step the sample step in bytes
+     * @param domainOf returns the position of a line that starts a message, or null
+     * @return the index or null if the file cannot be indexed
+     * @throws IOException on read errors
+     */
+    public static DomainIndex get(File file, Charset charset, long configurationHash, long step, Function<String, Long> domainOf) throws IOException {
+        if (file == null || !file.isFile() || "\n".getBytes(charset).length != 1 || TailLocator.isCompressed(file))
+            return null;
+        file = file.getCanonicalFile();
+        String key = file.getPath() + "|" + file.length() + "|" + file.lastModified() + "|" + charset.name() + "|" + configurationHash + "|" + step;
+        synchronized (cache) {
+            DomainIndex index = cache.get(key);
+            if (index != null)
+                return index;
+        }
+        DomainIndex index = build(file, charset, Math.max(BLOCK, step), domainOf);
+        synchronized (cache) {
+            cache.put(key, index);
+        }
+        return index;
+    }
+
+    /**
+     * Returns the byte offset to start reading for a window that begins at the given position.
+     * All messages at or after the position start at or after the returned offset, as long as
+     * positions are out of order by less than one sample step.
+     *
+     * @param position the window start
+     * @return the byte offset (0 for the file start)
+     */
+    public long offsetBefore(long position) {
+        int n = 0;
+        while (n < size && positions[n] < position)
+            n++;
+        return n >= 2 ? offsets[n - 2] : 0;
+    }
+
+    /**
+     * Returns the number of samples.
+     *
+     * @return the number of samples
+     */
+    public int size() {
+        return size;
+    }
+
+    // ========================================================================================================================
+    // Internal
+    // ========================================================================================================================
+
+    private static DomainIndex build(File file, Charset charset, long step, Function<String, Long> domainOf) throws IOException {
+        DomainIndex index = new DomainIndex();
+        byte[] block = new byte[BLOCK];
+        try (RandomAccessFile raf = new RandomAccessFile(file, "r")) {
+            long length = raf.length();
+            for (long at = 0; at < length; at += step) {
+                raf.seek(at);
+                int len = raf.read(block, 0, block.length);
+                if (len <= 0)
+                    break;
+
+                // first line start of the block
+                int pos = 0;
+                if (at > 0) {
+                    while (pos < len && block[pos] != '\n')
+                        pos++;
+                    pos++;
+                }
+
+                // first complete line that starts a message
+                while (pos < len) {
+                    int end = pos;
+                    while (end < len && block[end] != '\n' && block[end] != '\r')
+                        end++;
+                    if (end >= len)
+                        break;
+                    Long position = end > pos ? domainOf.apply(new String(block, pos, end - pos, charset)) : null;
+                    if (position != null) {
+                        index.add(position, at + pos);
+                        break;
+                    }
+                    pos = end + 1;
+                }
+            }
+        }
+        return index;
+    }
+
+    private void add(long position, long offset) {
+        if (size == positions.length) {
+            positions = Arrays.copyOf(positions, size * 2);
+            offsets = Arrays.copyOf(offsets, size * 2);
+        }
+        positions[size] = position;
+        offsets[size] = offset;
+        size++;
+    }
+}
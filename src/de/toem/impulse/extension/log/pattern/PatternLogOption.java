@@ -37,6 +37,7 @@ import de.toem.toolkits.utils.text.MultilineText;
  * - Support for different actions (ignore, start new message, add to message, terminate)
  * - Flexible source mapping for domain, name, and member extraction
  * - Built-in pattern testing with example text
+ * - Numeric extraction rules that turn numbers inside captured groups into value signals
  * - Dynamic source validation based on pattern complexity
  *
  * Implementation notes:
@@ -111,6 +112,10 @@ public class PatternLogOption extends AbstractLogOption {
     // Whether to add record position
     public boolean addRecPos = true;
 
+    // extract
+    // Extraction rules, one per line: group:signal[:integer|:float]=rule
+    public String extract;
+
     // source
     // Constant for no source
     public static final int SOURCE_NONE = 0;
@@ -240,6 +245,10 @@ public class PatternLogOption extends AbstractLogOption {
                 }
             }, tlk().ld(1, TLK.RIGHT, TLK.DEFAULT, TLK.FILL, TLK.DEFAULT), TLK.NULL, I18n.General_Test, null);
 
+            tlk().addTextBox(container(), new TextBoxController(editor(), field("extract")),
+                    tlk().ld(cols(), TLK.FILL, TLK.NO_HINT, TLK.FILL, 3), TLK.LABEL | TLK.BORDER | TLK.MULTI | TLK.V_SCROLL,
+                    I18n.PatternConfigurationDialog_ExtractRules);
+
         }
 
         /**
@@ -1,18 +1,33 @@
 package de.toem.impulse.extension.log.pattern;
 
-import java.io.BufferedReader;
+import java.io.File;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.InputStreamReader;
+import java.nio.charset.Charset;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.regex.MatchResult;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 
+import de.toem.impulse.cells.record.IRecord;
+import de.toem.impulse.extension.log.common.AbstractPipelineLogReader;
+import de.toem.impulse.extension.log.common.EnumDictionary;
+import de.toem.impulse.extension.log.common.LogRecordCache;
+import de.toem.impulse.extension.log.common.ReorderBuffer;
 import de.toem.impulse.extension.log.i18n.I18n;
+import de.toem.impulse.samples.IFloatSamplesWriter;
+import de.toem.impulse.samples.IIntegerSamplesWriter;
 import de.toem.impulse.samples.ISample;
+import de.toem.impulse.samples.ISamples;
 import de.toem.impulse.samples.ITextSamplesWriter;
 import de.toem.impulse.serializer.AbstractSingleDomainRecordReader;
 import de.toem.impulse.usecase.logging.AbstractLogOption;
 import de.toem.impulse.usecase.logging.AbstractLogReader;
+import de.toem.impulse.usecase.logging.Log;
 import de.toem.impulse.usecase.logging.LogWriter;
 import de.toem.toolkits.core.Utils;
 import de.toem.toolkits.pattern.element.CellAnnotation;
@@ -43,9 +58,15 @@ import de.toem.toolkits.utils.serializer.ParseException;
  * - Supports multi-line message assembly using pattern actions (start/terminate)
  * - Optional writing of raw lines into a separate "lines" writer
  * - Configurable skip/stop line counts and progress reporting
+ * - Numeric extraction rules writing values from captured groups into integer/float signals
+ * - Optional match cache that replays group spans on re-import instead of evaluating the patterns
+ * - Optional record cache that replays the parsed messages of unchanged files instead of parsing
+ * - Optional reorder stage that writes slightly out-of-order messages in position order per signal
+ * - Optional stack trace detection that appends trace lines to the current message without regex matching
+ * - Bounded line length: long lines are cut and their remainder is dropped or spilled to a file
  *
  * Implementation notes:
- * - This reader extends {@link de.toem.impulse.usecase.logging.AbstractLogReader}
+ * - This reader extends {@link AbstractPipelineLogReader} (shared message pipeline)
  *   and follows the project property-model conventions for configuration.
  * - Time and domain parsing, member mapping and writer interaction are
  *   implemented in the nested {@link PatternParser} class.
@@ -55,7 +76,7 @@ import de.toem.toolkits.utils.serializer.ParseException;
  *
  */
 @RegistryAnnotation(annotation = PatternLogReader.Annotation.class)
-public class PatternLogReader extends AbstractLogReader {
+public class PatternLogReader extends AbstractPipelineLogReader {
     /**
      * Annotation class for PatternLogReader.
      */
@@ -73,6 +94,23 @@ public class PatternLogReader extends AbstractLogReader {
     // Members
     // ========================================================================================================================
 
+    // Powers of ten for numeric member parsing
+    private static final double[] POW10 = { 1e0, 1e1, 1e2, 1e3, 1e4, 1e5, 1e6, 1e7, 1e8, 1e9, 1e10, 1e11, 1e12, 1e13, 1e14, 1e15 };
+
+    // Domain window of a windowed import (unbounded if not set)
+    protected long windowStart = Long.MIN_VALUE;
+    protected long windowEnd = Long.MAX_VALUE;
+    // Distance beyond the window end up to which out-of-order messages are still expected
+    protected long windowSlack;
+    // A message beyond the window end has been parsed
+    protected boolean windowPassed;
+    // Extraction rules of all options
+    protected List<ExtractRule> extractRules = new ArrayList<>();
+    // Extraction targets by signal name
+    protected Map<String, ExtractTarget> extractTargets = new HashMap<>();
+    // Stack trace detector (reset for each import)
+    protected StackTraceDetector stackTraceDetector = new StackTraceDetector();
+
     // ========================================================================================================================
     // Constructor
     // ========================================================================================================================
@@ -97,7 +135,7 @@ public class PatternLogReader extends AbstractLogReader {
      */
     public PatternLogReader(ISerializerDescriptor descriptor, String contentName, String contentType, String cellType, String configuration,
             String[][] properties, InputStream in) {
-        super(descriptor, configuration, properties, getPropertyModel(descriptor, null), in);
+        super(descriptor, contentName, configuration, properties, getPropertyModel(descriptor, null), in);
     }
 
     /**
@@ -237,13 +275,43 @@ public class PatternLogReader extends AbstractLogReader {
      * - writeLines: whether parsed raw lines should be written to a separate writer
      * - skipLines: number of initial lines to skip
      * - stopAfterLines: stop parsing after this many lines
+     * - messageTemplates: mine message templates and store messages as template plus parameters
+     * - templateSimilarity: minimum similarity in percent for a message to join a template
+     * - templateSignal: name of the template signal (choose a name that is not used by a logger)
+     * - cacheMatches: record the match results and replay them when the same content is imported with the same patterns
+     * - cacheRecords: store the parsed messages and replay them when the same unchanged file is opened with the same configuration
+     * - recordCacheSize: maximum size of all record cache files in MB
+     * - detectStackTraces: append Java/Python stack trace lines to the message member of the current message
+     * - maxLineLength: maximum number of characters of a line that are kept in memory (0 for unlimited)
+     * - spillLongLines: write the remainder of long lines into a temporary file instead of dropping it
+     * - reorderWindow: reorder messages per signal within this window (domain units, 0 for none)
+     * - reorderEntries: reorder messages per signal within this number of messages (0 for none)
+     * - firstScreenMessages: commit the first n messages immediately and continue the import with lower priority (0 for none)
+     * - firstScreenSpan: commit the first span of the domain immediately (domain units, 0 for none)
+     * - tailSize: import only the last n MB of the file, starting at a message boundary (0 for the whole file)
+     * - windowStart/windowEnd: import only messages within this domain range; the reader seeks to the window using a sparse position index
+     * - windowSlack: continue reading until a message is this far beyond the window end (domain units, 0 to stop at the first one)
+     * - checkpointLines: write a record cache checkpoint every n lines; interrupted imports resume at the last checkpoint (0 for none)
      *
      * @param descriptor serializer descriptor providing contextual information
      * @param context additional context (may be null)
      * @return configured PropertyModel
      */
     static public PropertyModel getPropertyModel(ISerializerDescriptor descriptor, Object context) {
-        return AbstractLogReader.getPropertyModel(descriptor, context).add("writeLines", false, null, "Add signal with raw lines includes").add("skipLines", 0, null,null,null, "Skip Lines").add("stopAfterLines",  -1, null,null,null, "Stop After Lines");
+        return AbstractLogReader.getPropertyModel(descriptor, context).add("writeLines", false, null, "Add signal with raw lines includes").add("skipLines", 0, null,null,null, "Skip Lines").add("stopAfterLines",  -1, null,null,null, "Stop After Lines")
+                .add("nameInclude", "", null, null, null, "Include Names").add("nameExclude", "", null, null, null, "Exclude Names")
+                .add("messageTemplates", false, null, "Mine message templates").add("templateSimilarity", 50, null, null, null, "Template Similarity (%)")
+                .add("templateSignal", DEFAULT_TEMPLATE_SIGNAL, null, null, "Template Signal", null, null)
+                .add("cacheMatches", false, null, "Cache pattern matches")
+                .add("matchCacheSize", 256, null, null, null, "Match Cache Size (MB)").add("cacheRecords", false, null, "Cache parsed records")
+                .add("recordCacheSize", 1024, null, null, null, "Record Cache Size (MB)")
+                .add("detectStackTraces", false, null, "Append stack traces to messages")
+                .add("maxLineLength", 0, null, null, null, "Max Line Length (chars)").add("spillLongLines", false, null, "Spill long line remainders to file")
+                .add("reorderWindow", 0, null, null, null, "Reorder Window (domain units)").add("reorderEntries", 0, null, null, null, "Reorder Entries")
+                .add("firstScreenMessages", 0, null, null, null, "First Screen (messages)").add("firstScreenSpan", 0, null, null, null, "First Screen Span (domain units)")
+                .add("checkpointLines", 0, null, null, null, "Checkpoint Interval (lines)").add("tailSize", 0, null, null, null, "Tail Size (MB)")
+                .add("windowStart", "", null, null, null, "Window Start (domain units)").add("windowEnd", "", null, null, null, "Window End (domain units)")
+                .add("windowSlack", 0, null, null, null, "Window Slack (domain units)");
     }
 
     // ========================================================================================================================
@@ -279,9 +347,25 @@ public class PatternLogReader extends AbstractLogReader {
      * @throws IOException on IO errors
      */
     @Override
-    protected void parseLogs(IProgress progress, InputStream in) throws ParseException, IOException {
+    protected void parseContent(IProgress progress, InputStream in) throws ParseException, IOException {
 
-        BufferedReader reader = new BufferedReader(new InputStreamReader(in, charSet));
+        // tail-first: skip everything before the last tailSize MB (at a message boundary)
+        // windowed: skip everything before the indexed offset of the window start
+        String start = getProperty("windowStart");
+        String end = getProperty("windowEnd");
+        windowStart = !Utils.isEmpty(start) ? Utils.parseLong(start.trim(), Long.MIN_VALUE) : Long.MIN_VALUE;
+        windowEnd = !Utils.isEmpty(end) ? Utils.parseLong(end.trim(), Long.MAX_VALUE) : Long.MAX_VALUE;
+        windowSlack = Math.max(0, Utils.parseLong(getProperty("windowSlack"), 0));
+        windowPassed = false;
+        long startOffset = locateTail();
+        if (startOffset == 0)
+            startOffset = locateWindow();
+        if (startOffset > 0)
+            skipBytes(in, startOffset);
+
+        // long lines are cut at maxLineLength; the remainder is dropped or spilled
+        int maxLineLength = Utils.parseInt(getProperty("maxLineLength"), 0);
+        BoundedLineReader reader = new BoundedLineReader(new InputStreamReader(in, charSet), maxLineLength, getTypedProperty("spillLongLines", Boolean.class));
         closable = reader;
 
         // extract log data
@@ -299,51 +383,637 @@ public class PatternLogReader extends AbstractLogReader {
             linesWriter.setEnum(ISample.ENUM_RELATION_DOMAINBASE, 1, PatternLogReader.this.domainBase.toString());
         }
 
-        // read lines
-        while ((line = reader.readLine()) != null && (progress == null || !progress.isCanceled())) {
+        // message templates, name filter, reorder stage
+        initPipeline();
 
+        // parsers in option order
+        List<PatternParser> list = new ArrayList<>();
+        for (AbstractOptionParser p : parser)
+            list.add((PatternParser) p);
+        PatternParser[] parsers = list.toArray(new PatternParser[list.size()]);
 
-            if (Utils.isEmpty(line)) {
-                lineNo++;
-                continue;
+        // extraction rules
+        extractRules.clear();
+        extractTargets.clear();
+        for (PatternParser p : parsers)
+            for (ExtractRule rule : p.rules) {
+                rule.target = createExtractTarget(rule);
+                extractRules.add(rule);
             }
-            if (skipLines > 0 && lineNo < skipLines) {
-                lineNo++;
-                continue;
+
+        // record cache
+        recordCache = openRecordCache();
+        if (recordCache != null && recordCache.isReplaying() && !recordCache.isResuming()) {
+            try {
+                if (!replayMessages(progress, message) && (progress == null || !progress.isCanceled()))
+                    throw new ParseException(-1, "Invalid record cache");
+                flushReorder();
+            } finally {
+                closeRecordCache(false);
             }
-            if (stopAfterLines > 0 && lineNo >= stopAfterLines)
-                break;
+            return;
+        }
+
+        // resume an interrupted import at its last checkpoint
+        int checkpointLines = recordCache != null ? Utils.parseInt(getProperty("checkpointLines"), 0) : 0;
+        boolean resumed = false;
+        if (recordCache != null && recordCache.isResuming()) {
+            if (!replayMessages(progress, message)) {
+                closeRecordCache(false);
+                if (progress == null || !progress.isCanceled())
+                    throw new ParseException(-1, "Invalid record cache");
+                return;
+            }
+            long offset = recordCache.getResumeOffset();
+            long resumeLineNo = recordCache.getResumeLineNo();
+            if (!recordCache.resume()) {
+                recordCache = null;
+                throw new ParseException(-1, "Invalid record cache");
+            }
+            reader.skip(offset);
+            lineNo = (int) resumeLineNo;
+            resumed = true;
+        }
+        // start of the open message (checkpoints resume there)
+        int messageLineNo = lineNo;
+        long messageOffset = reader.getOffset();
+        long nextCheckpoint = lineNo + checkpointLines;
+
+        // stack trace detection
+        StackTraceDetector detector = getTypedProperty("detectStackTraces", Boolean.class) ? stackTraceDetector : null;
+        if (detector != null)
+            detector.reset();
+
+        // match cache (lines consumed by the detector are not recorded; not used when resuming)
+        PatternSpanCache cache = null;
+        if (getTypedProperty("cacheMatches", Boolean.class) && !resumed && startOffset == 0) {
+            String[] patterns = new String[parsers.length];
+            for (int n = 0; n < parsers.length; n++)
+                patterns[n] = parsers[n].pattern.pattern();
+            cache = PatternSpanCache.open(contentName, 31 * PatternSpanCache.hash(patterns) + (detector != null ? 1 : 0),
+                    Utils.parseInt(getProperty("matchCacheSize"), 256) * 1024L * 1024L);
+        }
+        boolean completed = false;
+
+        // read lines
+        try {
+            while ((line = reader.readLine()) != null && (progress == null || !progress.isCanceled())) {
+
+                // checkpoint before the current line (at the start of the open message, also inside a stack trace)
+                if (checkpointLines > 0 && lineNo >= nextCheckpoint) {
+                    if (message.isEmpty())
+                        recordCache.checkpoint(lineNo, reader.getLineOffset());
+                    else
+                        recordCache.checkpoint(messageLineNo, messageOffset);
+                    nextCheckpoint = lineNo + checkpointLines;
+                }
+
+                if (Utils.isEmpty(line)) {
+                    lineNo++;
+                    continue;
+                }
+                if (skipLines > 0 && lineNo < skipLines) {
+                    lineNo++;
+                    continue;
+                }
+                if (stopAfterLines > 0 && lineNo >= stopAfterLines)
+                    break;
+
+                // stack trace continuation (a trace ends with the first other line)
+                if (detector != null) {
+                    if (!message.isEmpty() && appendContinuation(detector, message)) {
+                        String note = reader.getOverflowNote();
+                        if (note != null)
+                            appendOverflowNote(message, note);
+                        if (linesWriter != null)
+                            linesWriter.write(lineNo, false, note != null ? line + note : line);
+                        if ((lineNo++ % 1000) == 0)
+                            flushAndSetProgress(progress);
+                        continue;
+                    }
+                    detector.reset();
+                }
 
-            boolean matched = false;
-            for (AbstractOptionParser p : parser) {
-                PatternParser parser = (PatternParser) p;
-                Matcher m = parser.matcher(line);
-                if (m != null && m.matches()) {
-
-                    // handle pattern options
-                    LogWriter writer = parser.parse(m, message);
-                    if (linesWriter != null && writer != null) {
-                        if (writer.linesTargetId == 0) {
-                            writer.linesTargetId = nextLinesTargetId++;
-                            linesWriter.setEnum(ISample.ENUM_RELATION_TARGET, writer.linesTargetId, writer.writer.getId());
+                // match (replayed from cache or evaluated)
+                PatternParser matching = null;
+                MatchResult result = null;
+                int index = cache != null ? cache.replay(line) : -2;
+                if (index >= 0 && index < parsers.length) {
+                    matching = parsers[index];
+                    result = cache.spans();
+                } else if (index == -2) {
+                    for (int n = 0; n < parsers.length; n++) {
+                        Matcher m = parsers[n].matcher(line);
+                        if (m != null && m.matches()) {
+                            matching = parsers[n];
+                            result = m;
+                            index = n;
+                            break;
                         }
-                        linesWriter.attachRelation(ISample.AT_RELATION_ABS_POS|ISample.AT_RELATION_CONTENT_FLAG, writer.linesTargetId, 1, writer.current, 1,ISample.CONTENT_SAMPLE,writer.writer.getCount()-1);
                     }
-                    matched = true;
+                    if (cache != null)
+                        cache.record(line, matching != null ? index : -1, result);
+                }
+                if (matching == null)
+                    throw new ParseException(-1, "No match");
+
+                // handle pattern options
+                LogWriter writer = matching.parse(result, message);
+                if (!message.isEmpty() && message.lineNo == lineNo) {
+                    messageLineNo = lineNo;
+                    messageOffset = reader.getLineOffset();
+                }
+                // note of a cut line (patterns only see the bounded line)
+                String note = reader.getOverflowNote();
+                if (note != null && !matching.ignoresMatch())
+                    appendOverflowNote(message, note);
+                if (windowPassed)
                     break;
+                if (linesWriter != null && writer != null) {
+                    if (writer.linesTargetId == 0) {
+                        writer.linesTargetId = nextLinesTargetId++;
+                        linesWriter.setEnum(ISample.ENUM_RELATION_TARGET, writer.linesTargetId, writer.writer.getId());
+                    }
+                    linesWriter.attachRelation(ISample.AT_RELATION_ABS_POS|ISample.AT_RELATION_CONTENT_FLAG, writer.linesTargetId, 1, writer.current, 1,ISample.CONTENT_SAMPLE,writer.writer.getCount()-1);
                 }
-            }
-            if (!matched)
-                throw new ParseException(-1, "No match");
 
-            if (linesWriter != null)
-                linesWriter.write(lineNo, false, line);
+                if (linesWriter != null)
+                    linesWriter.write(lineNo, false, note != null ? line + note : line);
             
-            // next line / progress
-            if ((lineNo++ % 1000) == 0)
-                flushAndSetProgress(progress);
+                // next line / progress
+                if ((lineNo++ % 1000) == 0)
+                    flushAndSetProgress(progress);
+            }
+            flushReorder();
+            reportMalformedNumbers(parsers);
+            reportDroppedExtracts();
+            completed = progress == null || !progress.isCanceled();
+        } finally {
+            if (cache != null)
+                cache.close(completed);
+            closeRecordCache(completed);
+        }
+
+    }
+
+    /**
+     * Reports the number of malformed numeric member values per option. Malformed values
+     * are kept as text.
+     *
+     * @param parsers the parsers in option order
+     */
+    protected void reportMalformedNumbers(PatternParser[] parsers) {
+        for (int n = 0; n < parsers.length; n++)
+            if (parsers[n].malformed > 0)
+                Utils.log("Malformed numbers in pattern", n + 1, parsers[n].pattern.pattern(), ":", parsers[n].malformed, "first in line", parsers[n].firstMalformedLine);
+    }
+
+    /**
+     * Reports the number of extracted values per signal that have not been written
+     * because their message lies behind the last value of the signal.
+     */
+    protected void reportDroppedExtracts() {
+        for (Map.Entry<String, ExtractTarget> entry : extractTargets.entrySet())
+            if (entry.getValue().dropped > 0)
+                Utils.log("Extracted values behind the last value of signal", entry.getKey(), ":", entry.getValue().dropped);
+    }
+
+    /**
+     * Returns the byte offset of the tail if the "tailSize" property is set and the
+     * content is an uncompressed local file. The tail starts at a line matching a
+     * pattern with the start action (or any pattern if there is none).
+     *
+     * @return the offset or 0 to read the whole content
+     */
+    protected long locateTail() {
+        long tailSize = Utils.parseLong(getProperty("tailSize"), 0);
+        if (tailSize <= 0 || Utils.isEmpty(contentName))
+            return 0;
+        List<PatternParser> boundaries = boundaryParsers();
+        try {
+            return TailLocator.locate(new File(contentName), Charset.forName(String.valueOf(charSet)), tailSize * 1024L * 1024L, text -> {
+                for (PatternParser p : boundaries) {
+                    Matcher m = p.matcher(text);
+                    if (m != null && m.matches())
+                        return true;
+                }
+                return false;
+            });
+        } catch (IOException | IllegalArgumentException e) {
+            return 0;
+        }
+    }
+
+    /**
+     * Returns the byte offset of the window if the "windowStart" property is set and
+     * the content is an uncompressed local file. The offset is taken from a sparse
+     * position index of the file (see {@link DomainIndex}).
+     *
+     * @return the offset or 0 to read from the start
+     */
+    protected long locateWindow() {
+        if (windowStart == Long.MIN_VALUE || Utils.isEmpty(contentName))
+            return 0;
+        List<PatternParser> boundaries = boundaryParsers();
+        long hash = 0;
+        for (PatternParser p : boundaries)
+            hash = 31 * hash + p.optionHash;
+        try {
+            DomainIndex index = DomainIndex.get(new File(contentName), Charset.forName(String.valueOf(charSet)), hash, DomainIndex.DEFAULT_STEP, text -> {
+                for (PatternParser p : boundaries) {
+                    Matcher m = p.matcher(text);
+                    if (m != null && m.matches())
+                        return p.domainOf(m);
+                }
+                return null;
+            });
+            return index != null ? index.offsetBefore(windowStart) : 0;
+        } catch (IOException | IllegalArgumentException e) {
+            return 0;
         }
+    }
+
+    /**
+     * Returns the parsers whose matches start a message (all parsers if none has the
+     * start action).
+     *
+     * @return the parsers
+     */
+    protected List<PatternParser> boundaryParsers() {
+        List<PatternParser> all = new ArrayList<>();
+        List<PatternParser> starts = new ArrayList<>();
+        for (AbstractOptionParser p : parser) {
+            all.add((PatternParser) p);
+            if (((PatternParser) p).startsMessage())
+                starts.add((PatternParser) p);
+        }
+        return starts.isEmpty() ? all : starts;
+    }
+
+    /**
+     * Returns true if the position of the given message is outside the domain window.
+     * A message beyond the window end plus the window slack ends the import.
+     *
+     * @param message the message
+     * @return true if outside
+     */
+    protected boolean isOutsideWindow(LogMessage message) {
+        if (message.position == null || (windowStart == Long.MIN_VALUE && windowEnd == Long.MAX_VALUE))
+            return false;
+        long position = positionOf(message);
+        if (position > windowEnd && position - windowEnd > windowSlack)
+            windowPassed = true;
+        return position < windowStart || position > windowEnd;
+    }
+
+    /**
+     * Appends the current line to the message member of the given message if the
+     * detector classifies it as stack trace continuation. Lines are separated by
+     * line feeds.
+     *
+     * @param detector the stack trace detector
+     * @param message the current message
+     * @return true if the line has been appended
+     */
+    protected boolean appendContinuation(StackTraceDetector detector, LogMessage message) {
+        int index = -1;
+        if (message.nameParser instanceof PatternParser)
+            index = ((PatternParser) message.nameParser).messageIndex;
+        if (index < 0 && message.positionParser instanceof PatternParser)
+            index = ((PatternParser) message.positionParser).messageIndex;
+        if (index < 0 || index >= message.values.length || !detector.isContinuation(line))
+            return false;
+        Object previous = message.values[index];
+        message.values[index] = previous instanceof String && !((String) previous).isEmpty() ? previous + "\n" + line : line;
+        return true;
+    }
+
+    /**
+     * Appends the note of a cut line (see {@link BoundedLineReader#getOverflowNote()})
+     * to the message member of the given message.
+     *
+     * @param message the current message
+     * @param note the note
+     */
+    protected void appendOverflowNote(LogMessage message, String note) {
+        int index = messageIndexOf(message);
+        if (message.isEmpty() || index < 0 || index >= message.values.length)
+            return;
+        Object previous = message.values[index];
+        message.values[index] = previous instanceof String ? previous + note : note.trim();
+    }
+
+    /**
+     * Returns the value index of the {@link Log#MESSAGE} member of an option parser.
+     *
+     * @param parser the option parser
+     * @return the value index or -1 if none
+     */
+    @Override
+    protected int getMessageIndex(AbstractOptionParser parser) {
+        return ((PatternParser) parser).messageIndex;
+    }
+
+    /**
+     * Returns the hash of the option configuration of a pattern option parser.
+     *
+     * @param parser the option parser
+     * @return the hash
+     */
+    @Override
+    protected long getOptionHash(AbstractOptionParser parser) {
+        return ((PatternParser) parser).optionHash;
+    }
 
+    /**
+     * Returns true if the given message is excluded by name or outside the domain window.
+     *
+     * @param message the message
+     * @return true if dropped
+     */
+    @Override
+    protected boolean isDropped(LogMessage message) {
+        return isExcluded(message) || isOutsideWindow(message);
+    }
+
+    /**
+     * Returns the pending values of all extraction rules (by rule index) and resets
+     * the rules. The values are recorded with the message and travel with it through
+     * the reorder stage, so a buffered message never picks up the values of a later line.
+     *
+     * @return the values or null if no value is pending
+     */
+    @Override
+    protected Object[] takeExtras() {
+        Object[] extras = null;
+        for (int n = 0; n < extractRules.size(); n++) {
+            Number value = extractRules.get(n).take();
+            if (value != null) {
+                if (extras == null)
+                    extras = new Object[extractRules.size()];
+                extras[n] = value;
+            }
+        }
+        return extras;
+    }
+
+    /**
+     * Writes the extracted values of a message at its position.
+     *
+     * @param writer the log writer of the message (null if the message was not written)
+     * @param extras the values by rule index
+     * @throws ParseException on write errors
+     */
+    @Override
+    protected void writeExtras(LogWriter writer, Object[] extras) throws ParseException {
+        for (int n = 0; n < extras.length && n < extractRules.size(); n++)
+            if (extras[n] instanceof Number)
+                extractRules.get(n).write(writer, (Number) extras[n]);
+    }
+
+    /**
+     * Creates the reorder stage if the "reorderWindow" or "reorderEntries" property is set.
+     * With "writeLines", the reorder stage is off: the relation from a raw line to its
+     * message needs the sample of the message when the line is written.
+     *
+     * @return the reorder buffer or null
+     */
+    @Override
+    protected ReorderBuffer<BufferedMessage> createReorderBuffer() {
+        ReorderBuffer<BufferedMessage> reorder = super.createReorderBuffer();
+        if (reorder != null && lines != null) {
+            Utils.log("Reorder stage is not available with writeLines");
+            return null;
+        }
+        return reorder;
+    }
+
+    /**
+     * Opens the record cache if the "cacheRecords" property is set. Raw line signals
+     * are not cached; with "writeLines" the cache is off. With "checkpointLines", an
+     * interrupted recording is kept and resumed.
+     *
+     * @return the cache or null
+     */
+    @Override
+    protected LogRecordCache openRecordCache() {
+        return openRecordCache(getTypedProperty("cacheRecords", Boolean.class) && lines == null, Utils.parseInt(getProperty("checkpointLines"), 0) > 0, false);
+    }
+
+    /**
+     * Returns the extraction target for the given rule. Rules with the same
+     * signal name share one target.
+     *
+     * @param rule the extraction rule
+     * @return the target
+     */
+    protected ExtractTarget createExtractTarget(ExtractRule rule) {
+        ExtractTarget target = extractTargets.get(rule.name);
+        if (target == null) {
+            target = new ExtractTarget();
+            target.isFloat = rule.isFloat;
+            target.signal = addSignal(null, rule.name, null, null, rule.isFloat ? ISample.DATA_TYPE_FLOAT : ISample.DATA_TYPE_INTEGER, -1,
+                    ISamples.FORMAT_DEFAULT);
+            target.writer = getWriter(target.signal);
+            extractTargets.put(rule.name, target);
+        }
+        return target;
+    }
+
+    /**
+     * Parses the trimmed range text[start..end) as integer or float number without
+     * creating a substring for plain decimal numbers.
+     *
+     * @return a Long or Double, or null if the range is empty or malformed
+     */
+    static Object parseNumber(String text, int start, int end, boolean isFloat) {
+        while (start < end && text.charAt(start) <= ' ')
+            start++;
+        while (end > start && text.charAt(end - 1) <= ' ')
+            end--;
+        if (start >= end)
+            return null;
+        boolean negative = text.charAt(start) == '-';
+        int pos = (negative || text.charAt(start) == '+') ? start + 1 : start;
+        long mantissa = 0;
+        int digits = 0;
+        int fraction = -1;
+        for (; pos < end; pos++) {
+            char c = text.charAt(pos);
+            if (c >= '0' && c <= '9') {
+                mantissa = mantissa * 10 + (c - '0');
+                digits++;
+                if (fraction >= 0)
+                    fraction++;
+            } else if (c == '.' && isFloat && fraction < 0)
+                fraction = 0;
+            else
+                break;
+        }
+        if (pos == end && digits > 0 && digits <= 15) {
+            if (!isFloat)
+                return Long.valueOf(negative ? -mantissa : mantissa);
+            double value = fraction > 0 ? mantissa / POW10[fraction] : mantissa;
+            return Double.valueOf(negative ? -value : value);
+        }
+
+        // long numbers, exponents, special values
+        try {
+            String number = text.substring(start, end);
+            return isFloat ? (Object) Double.valueOf(number) : (Object) Long.valueOf(number);
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+
+    /**
+     * Target signal of one or more extraction rules.
+     */
+    static class ExtractTarget {
+        // The signal
+        IRecord.Signal signal;
+        // The signal writer
+        Object writer;
+        // Float or integer signal
+        boolean isFloat;
+        // Last written position
+        long last = Long.MIN_VALUE;
+        // Number of values behind the last written position
+        long dropped;
+    }
+
+    /**
+     * Numeric extraction rule of a pattern option.
+     *
+     * A rule is applied to the text range of one capture group and keeps the
+     * extracted number until the message is written; then the number is written
+     * into an integer or float signal at the position of the message.
+     *
+     * Rules are given one per line as group:signal[:integer|:float]=rule. If the
+     * rule contains a group "(...)", it is used as regular expression and its
+     * first group is parsed; otherwise it is a literal key and the number that
+     * follows the key is parsed (e.g. "depth=" or "queue depth").
+     */
+    class ExtractRule {
+
+        // Source group
+        final int source;
+        // Signal name
+        final String name;
+        // Float or integer value
+        final boolean isFloat;
+        // Literal key (null for regex rules)
+        final String key;
+        // Matcher for regex rules (null for key rules)
+        final Matcher matcher;
+        // Target signal
+        ExtractTarget target;
+
+        // Pending value
+        boolean pending;
+        long longValue;
+        double doubleValue;
+
+        /**
+         * Constructs an ExtractRule from its textual definition.
+         *
+         * @param definition the rule definition
+         * @throws ParseException if the definition is invalid
+         */
+        ExtractRule(String definition) throws ParseException {
+            int eq = definition.indexOf('=');
+            if (eq < 0)
+                throw new ParseException(0, "Invalid extract rule: " + definition);
+            String[] head = definition.substring(0, eq).split(":");
+            String rule = definition.substring(eq + 1).trim();
+            source = head.length >= 2 ? Utils.parseInt(head[0].trim(), -1) : -1;
+            name = head.length >= 2 ? head[1].trim() : null;
+            isFloat = head.length >= 3 && "float".equalsIgnoreCase(head[2].trim());
+            if (source < PatternLogOption.MEMBER_MIN || Utils.isEmpty(name) || Utils.isEmpty(rule))
+                throw new ParseException(0, "Invalid extract rule: " + definition);
+            if (rule.indexOf('(') >= 0) {
+                try {
+                    matcher = Pattern.compile(rule).matcher("");
+                } catch (Throwable e) {
+                    throw new ParseException(0, "Invalid extract pattern: " + rule, e);
+                }
+                key = null;
+            } else {
+                matcher = null;
+                key = rule;
+            }
+        }
+
+        /**
+         * Extracts the value from the given text range.
+         *
+         * @param text the line
+         * @param start start of the group
+         * @param end end of the group
+         */
+        void extract(String text, int start, int end) {
+            int vs, ve;
+            if (matcher != null) {
+                matcher.reset(text).region(start, end);
+                if (!matcher.find() || matcher.groupCount() < 1 || matcher.start(1) < 0)
+                    return;
+                vs = matcher.start(1);
+                ve = matcher.end(1);
+            } else {
+                int pos = text.indexOf(key, start);
+                if (pos < 0 || pos + key.length() > end)
+                    return;
+                vs = pos + key.length();
+                while (vs < end && (Character.isWhitespace(text.charAt(vs)) || text.charAt(vs) == '=' || text.charAt(vs) == ':'))
+                    vs++;
+                ve = vs;
+                while (ve < end && (Character.isDigit(text.charAt(ve)) || "+-.eE".indexOf(text.charAt(ve)) >= 0))
+                    ve++;
+            }
+            // parsed like numeric members (trimmed, fast path for plain decimals)
+            Object value = parseNumber(text, vs, ve, isFloat);
+            if (value instanceof Double)
+                doubleValue = (Double) value;
+            else if (value instanceof Long)
+                longValue = (Long) value;
+            else
+                return;
+            pending = true;
+        }
+
+        /**
+         * Returns the pending value and resets it.
+         *
+         * @return the value (Double or Long) or null if none
+         */
+        Number take() {
+            if (!pending)
+                return null;
+            pending = false;
+            return isFloat ? (Number) doubleValue : (Number) longValue;
+        }
+
+        /**
+         * Writes a value at the current position of the given writer. Values behind the
+         * last value of the target signal cannot be written; they are counted and reported
+         * at the end of the import.
+         *
+         * @param writer the log writer of the message (null if the message was not written)
+         * @param value the extracted value
+         */
+        void write(LogWriter writer, Number value) {
+            if (writer == null || target == null)
+                return;
+            if (writer.current < target.last) {
+                target.dropped++;
+                return;
+            }
+            if (target.isFloat)
+                ((IFloatSamplesWriter) target.writer).write(writer.current, false, value.doubleValue());
+            else
+                ((IIntegerSamplesWriter) target.writer).write(writer.current, false, value.longValue());
+            target.last = writer.current;
+        }
     }
 
     class PatternParser extends AbstractOptionParser {
@@ -352,6 +1022,23 @@ public class PatternLogReader extends AbstractLogReader {
         private Pattern pattern;
         // The matcher instance
         private Matcher matcher;
+        // Value index of the message member (-1 if none)
+        int messageIndex = -1;
+        // Extraction rules of this option
+        private ExtractRule[] rules;
+        // Hash of the option configuration (record cache key)
+        final long optionHash;
+        // Dictionaries of enumeration members by group (null for other members)
+        private final EnumDictionary[] dictionaries = new EnumDictionary[PatternLogOption.MEMBER_MAX + 1];
+        // Dictionaries of the names
+        private final EnumDictionary name1Dictionary = new EnumDictionary();
+        private final EnumDictionary name2Dictionary = new EnumDictionary();
+        // Numeric type of members by group (SIGNAL_INTEGER, SIGNAL_FLOAT or 0)
+        private final int[] numericTypes = new int[PatternLogOption.MEMBER_MAX + 1];
+        // Number of malformed numeric member values
+        long malformed;
+        // Line number of the first malformed numeric member value
+        long firstMalformedLine = -1;
 
         /**
          * Constructs a PatternParser for the provided option.
@@ -371,6 +1058,31 @@ public class PatternLogReader extends AbstractLogReader {
                 throw new ParseException(0, "Invalid pattern", e);
             }
 
+            // message member
+            for (int n = PatternLogOption.MEMBER_MIN; n <= PatternLogOption.MEMBER_MAX; n++)
+                if (memberIndex[n] >= 0 && Log.MESSAGE.equals(Utils.trim((String) option.getValue("member" + n, String.class))))
+                    messageIndex = memberIndex[n];
+
+            // enumeration dictionaries
+            for (int n = PatternLogOption.MEMBER_MIN; n <= PatternLogOption.MEMBER_MAX; n++)
+                if ((memberIndex[n] >= 0 || n == tagSource) && option.getValueAsInt("s" + n) == PatternLogOption.SIGNAL_ENUMERATION)
+                    dictionaries[n] = new EnumDictionary();
+
+            // numeric members
+            for (int n = PatternLogOption.MEMBER_MIN; n <= PatternLogOption.MEMBER_MAX; n++) {
+                int type = option.getValueAsInt("s" + n);
+                if (memberIndex[n] >= 0 && n != tagSource && (type == PatternLogOption.SIGNAL_INTEGER || type == PatternLogOption.SIGNAL_FLOAT))
+                    numericTypes[n] = type;
+            }
+
+            // extraction rules
+            List<ExtractRule> list = new ArrayList<>();
+            if (!Utils.isEmpty(option.extract))
+                for (String definition : option.extract.split("\\r?\\n"))
+                    if (!Utils.isEmpty(definition.trim()))
+                        list.add(new ExtractRule(definition.trim()));
+            rules = list.toArray(new ExtractRule[list.size()]);
+            optionHash = LogRecordCache.hash(0, option);
         }
 
         /**
@@ -385,6 +1097,41 @@ public class PatternLogReader extends AbstractLogReader {
             return matcher != null ? matcher.reset(line) : null;
         }
 
+        /**
+         * Returns true if a match of this option starts a new message.
+         *
+         * @return true for the start action
+         */
+        public final boolean startsMessage() {
+            return action == AbstractLogOption.ACTION_START;
+        }
+
+        /**
+         * Returns true if matches of this option are ignored.
+         *
+         * @return true for the ignore action
+         */
+        public final boolean ignoresMatch() {
+            return action == AbstractLogOption.ACTION_IGNORE;
+        }
+
+        /**
+         * Returns the primary position of a match, or null if the option has no domain
+         * value or the value cannot be parsed.
+         *
+         * @param m the match
+         * @return the position or null
+         */
+        final Long domainOf(Matcher m) {
+            if (domainMode == AbstractLogOption.DOMAIN_UNDEFINED || domainSource <= 0 || domainSource > m.groupCount())
+                return null;
+            try {
+                return parseDomain(m.group(domainSource));
+            } catch (ParseException e) {
+                return null;
+            }
+        }
+
     /**
      * Parses the matched groups from the provided Matcher and updates the
      * given LogMessage. Depending on the parser action the method can
@@ -395,19 +1142,19 @@ public class PatternLogReader extends AbstractLogReader {
      * using the configured group indices on the parser instance. It also
      * updates line numbers and the message empty flag.
      *
-     * @param m regex matcher with successful match
+     * @param m match result of a successful match (matcher or replayed spans)
      * @param message mutable log message to populate
      * @return a LogWriter when a write is triggered; otherwise null
      * @throws ParseException on semantic validation errors
      */
-    public LogWriter parse(Matcher m, LogMessage message) throws ParseException {
+    public LogWriter parse(MatchResult m, LogMessage message) throws ParseException {
 
             if (action == AbstractLogOption.ACTION_IGNORE)
                 return null;
 
             LogWriter writer = null;
             if (action == AbstractLogOption.ACTION_START && !message.isEmpty()) {
-                writer = write(message);
+                writer = writeMessage(message);
                 message.clear();
             }
 
@@ -434,22 +1181,33 @@ public class PatternLogReader extends AbstractLogReader {
                     message.name1 = name0;
                 else {
                     if (name1Source > 0 && name1Source <= m.groupCount()) {
-                        message.name1 = m.group(name1Source).trim();
+                        message.name1 = group(m, name1Source, name1Dictionary);
                     }
                 }
                 message.nameParser = this;
                 changed |= true;
             }
             if (name2Mode != AbstractLogOption.NAME_UNDEFINED && name2Source > 0 && name2Source <= m.groupCount()) {
-                message.name2 = m.group(name2Source).trim();
+                message.name2 = group(m, name2Source, name2Dictionary);
                 changed |= true;
             }
 
+            boolean excluded = isExcluded(message);
             // members
-            for (int n = PatternLogOption.MEMBER_MIN; n <= PatternLogOption.MEMBER_MAX && n <= maxMemberSource && n <= m.groupCount(); n++) {
+            for (int n = PatternLogOption.MEMBER_MIN; !excluded && n <= PatternLogOption.MEMBER_MAX && n <= maxMemberSource && n <= m.groupCount(); n++) {
                 int widx = memberIndex[n];
+                if (numericTypes[n] != 0 && message.values[widx] == null && m.start(n) >= 0) {
+                    Object value = parseNumber(line, m.start(n), m.end(n), numericTypes[n] == PatternLogOption.SIGNAL_FLOAT);
+                    if (value != null) {
+                        message.values[widx] = value;
+                        changed |= true;
+                        continue;
+                    }
+                    if (!m.group(n).trim().isEmpty() && malformed++ == 0)
+                        firstMalformedLine = lineNo;
+                }
                 if (widx >= 0 || n == tagSource) {
-                    String text = m.group(n).trim();
+                    String text = group(m, n, dictionaries[n]);
                     if (widx >= 0) {
                         Object previous = message.values[widx];
                         if (previous instanceof String)
@@ -468,6 +1226,13 @@ public class PatternLogReader extends AbstractLogReader {
                 }
             }
 
+            // extraction rules
+            for (int r = 0; !excluded && r < rules.length; r++) {
+                ExtractRule rule = rules[r];
+                if (rule.source <= m.groupCount() && m.start(rule.source) >= 0)
+                    rule.extract(line, m.start(rule.source), m.end(rule.source));
+            }
+
             // rec position
             if ( message.lineNo == -1) {
                 message.lineNo = lineNo;
@@ -478,11 +1243,23 @@ public class PatternLogReader extends AbstractLogReader {
                 message.setEmpty(false);
 
             if (action == AbstractLogOption.ACTION_TERMINATE) {
-                writer = write(message);
+                writer = writeMessage(message);
                 message.clear();
             }
 
             return writer;
         }
+
+        /**
+         * Returns the trimmed text of a group. With a dictionary, known values are
+         * looked up on the char range of the line and returned as canonical instance
+         * without creating a substring.
+         */
+        private String group(MatchResult m, int group, EnumDictionary dictionary) {
+            int start = dictionary != null ? m.start(group) : -1;
+            if (start < 0)
+                return m.group(group).trim();
+            return dictionary.get(line, start, m.end(group));
+        }
     }
 }
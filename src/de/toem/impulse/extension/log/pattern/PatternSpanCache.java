@@ -0,0 +1,405 @@
+package de.toem.impulse.extension.log.pattern;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.regex.MatchResult;
+
+import de.toem.impulse.extension.log.common.LogRecordCache;
+import de.toem.toolkits.core.Utils;
+
+/**
+ * Spill file of pattern match results for the pattern log reader.
+ *
+ * During an import, the cache records for each matched line the index of the
+ * matching option and the start/end offsets of all groups. A later import of the
+ * same content with the same patterns (e.g. after editing member names, signal
+ * types or tag patterns) replays these spans instead of evaluating the regular
+ * expressions again.
+ *
+ * File format (big endian, varints are unsigned LEB128):
+ * - Header: magic, version, pattern hash, source length, source modification time
+ * - Per line: varint line length, int line hash, varint option index + 1
+ *   (0 for no match), varint group count, and per group a varint start
+ *   (0 if the group did not participate, otherwise the zigzag delta to the
+ *   previous start + 1) followed by a varint group length
+ *
+ * Implementation notes:
+ * - Cache files are keyed by the canonical path of the source file and the
+ *   pattern hash and live in the temporary directory; a file is only replayed
+ *   if length and modification time of the source are unchanged.
+ * - The cache directory is bounded; after a commit, the least recently used
+ *   files are removed (replayed files are touched).
+ * - Each replayed record is verified against length and hash of the current line;
+ *   on the first mismatch the cache is dropped and the reader falls back to regex
+ *   matching for the remaining lines.
+ * - A cache file is only committed if the import completed.
+ *
+ * Copyright (c) 2013-2025 Thomas Haber
+ * All rights reserved.
+ *
+ */
+public class PatternSpanCache {
+
+    // File magic
+    private static final int MAGIC = 0x50534331; // PSC1
+    // File version
+    private static final int VERSION = 2;
+    // Cache directory
+    private static final String DIRECTORY = "impulse-log-spans";
+    // Cache file extension
+    private static final String EXTENSION = ".spans";
+
+    // Cache directory
+    private final File directory;
+    // Cache file
+    private final File file;
+    // Temporary file while recording
+    private final File temp;
+    // Input when replaying
+    private DataInputStream in;
+    // Output when recording
+    private DataOutputStream out;
+    // Maximum size of the cache directory in bytes
+    private final long limit;
+    // Replayed spans
+    private final Spans spans = new Spans();
+
+    /**
+     * Opens the cache for the given content and pattern hash. If a valid cache
+     * file exists, the cache replays; otherwise it records.
+     *
+     * @param contentName the name of the content (a file path)
+     * @param patternHash the hash of all patterns in option order
+     * @param limit the maximum size of the cache directory in bytes
+     * @return the cache or null if no cache can be used
+     */
+    public static PatternSpanCache open(String contentName, long patternHash, long limit) {
+        if (Utils.isEmpty(contentName) || limit <= 0)
+            return null;
+        try {
+            File source = new File(contentName);
+            if (!source.isFile())
+                return null;
+            source = source.getCanonicalFile();
+            File directory = new File(System.getProperty("java.io.tmpdir"), DIRECTORY);
+            if (!directory.isDirectory() && !directory.mkdirs())
+                return null;
+            String key = Long.toHexString(LogRecordCache.hash(1125899906842597L, source.getPath())) + "_" + Long.toHexString(patternHash);
+            return new PatternSpanCache(directory, new File(directory, key + EXTENSION), patternHash, source.length(), source.lastModified(), limit);
+        } catch (IOException e) {
+            return null;
+        }
+    }
+
+    /**
+     * Computes the hash of a sequence of patterns.
+     *
+     * @param patterns the patterns in option order
+     * @return the hash
+     */
+    public static long hash(String[] patterns) {
+        long hash = 1125899906842597L;
+        for (String pattern : patterns) {
+            String p = pattern != null ? pattern : "";
+            for (int n = 0; n < p.length(); n++)
+                hash = 31 * hash + p.charAt(n);
+            hash = 31 * hash + 0x1f;
+        }
+        return hash;
+    }
+
+    private PatternSpanCache(File directory, File file, long patternHash, long length, long modified, long limit) throws IOException {
+        this.directory = directory;
+        this.file = file;
+        this.temp = new File(file.getPath() + ".tmp");
+        this.limit = limit;
+        if (file.isFile()) {
+            DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(file), 1 << 16));
+            try {
+                if (in.readInt() == MAGIC && in.readInt() == VERSION && in.readLong() == patternHash && in.readLong() == length
+                        && in.readLong() == modified) {
+                    this.in = in;
+                    file.setLastModified(System.currentTimeMillis());
+                    return;
+                }
+            } catch (IOException e) {
+            }
+            in.close();
+            file.delete();
+        }
+        out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(temp), 1 << 16));
+        out.writeInt(MAGIC);
+        out.writeInt(VERSION);
+        out.writeLong(patternHash);
+        out.writeLong(length);
+        out.writeLong(modified);
+    }
+
+    /**
+     * Returns true if the cache replays recorded spans.
+     *
+     * @return true if replaying
+     */
+    public boolean isReplaying() {
+        return in != null;
+    }
+
+    /**
+     * Returns true if the cache records spans.
+     *
+     * @return true if recording
+     */
+    public boolean isRecording() {
+        return out != null;
+    }
+
+    /**
+     * Replays the record for the given line.
+     *
+     * @param line the current line
+     * @return the option index (-1 for no match), or -2 if the record does not
+     *         belong to this line; then the cache is dropped.
+     */
+    public int replay(String line) {
+        if (in == null)
+            return -2;
+        try {
+            int length = readVarint(in);
+            int hash = in.readInt();
+            int option = readVarint(in) - 1;
+            int groups = readVarint(in);
+            if (length != line.length() || hash != line.hashCode() || groups < 0) {
+                drop();
+                return -2;
+            }
+            spans.reset(line, groups);
+            int last = 0;
+            for (int n = 0; n <= groups; n++) {
+                int start = readVarint(in);
+                if (start == 0) {
+                    spans.starts[n] = -1;
+                    spans.ends[n] = -1;
+                    continue;
+                }
+                start = last + unzigzag(start - 1);
+                int end = start + readVarint(in);
+                if (start < 0 || end > length) {
+                    drop();
+                    return -2;
+                }
+                spans.starts[n] = start;
+                spans.ends[n] = end;
+                last = start;
+            }
+            return option;
+        } catch (IOException e) {
+            drop();
+            return -2;
+        }
+    }
+
+    /**
+     * Returns the spans of the last replayed record.
+     *
+     * @return the spans
+     */
+    public MatchResult spans() {
+        return spans;
+    }
+
+    /**
+     * Records the result for the given line.
+     *
+     * @param line the current line
+     * @param option the index of the matching option (-1 for no match)
+     * @param m the match result (may be null if no match)
+     */
+    public void record(String line, int option, MatchResult m) {
+        if (out == null)
+            return;
+        try {
+            boolean matched = option >= 0 && m != null;
+            int groups = matched ? m.groupCount() : 0;
+            writeVarint(out, line.length());
+            out.writeInt(line.hashCode());
+            writeVarint(out, matched ? option + 1 : 0);
+            writeVarint(out, groups);
+            int last = 0;
+            for (int n = 0; n <= groups; n++) {
+                int start = matched ? m.start(n) : -1;
+                if (start < 0) {
+                    writeVarint(out, 0);
+                    continue;
+                }
+                writeVarint(out, zigzag(start - last) + 1);
+                writeVarint(out, m.end(n) - start);
+                last = start;
+            }
+        } catch (IOException e) {
+            drop();
+        }
+    }
+
+    /**
+     * Closes the cache. A recording is committed if completed is true.
+     *
+     * @param completed true if the import completed
+     */
+    public void close(boolean completed) {
+        try {
+            if (in != null)
+                in.close();
+            if (out != null) {
+                out.close();
+                if (completed) {
+                    file.delete();
+                    if (temp.renameTo(file))
+                        evict();
+                } else
+                    temp.delete();
+            }
+        } catch (IOException e) {
+            temp.delete();
+        }
+        in = null;
+        out = null;
+    }
+
+    /**
+     * Drops the cache; replaying or recording stops and the file is removed.
+     */
+    public void drop() {
+        try {
+            if (in != null)
+                in.close();
+            if (out != null)
+                out.close();
+        } catch (IOException e) {
+        }
+        if (in != null)
+            file.delete();
+        temp.delete();
+        in = null;
+        out = null;
+    }
+
+    // ========================================================================================================================
+    // Internal
+    // ========================================================================================================================
+
+    private void evict() {
+        File[] files = directory.listFiles((dir, name) -> name.endsWith(EXTENSION));
+        if (files == null)
+            return;
+        long total = 0;
+        long[] modified = new long[files.length];
+        for (int n = 0; n < files.length; n++) {
+            total += files[n].length();
+            modified[n] = files[n].lastModified();
+        }
+        Integer[] order = new Integer[files.length];
+        for (int n = 0; n < order.length; n++)
+            order[n] = n;
+        Arrays.sort(order, Comparator.comparingLong(n -> modified[n]));
+        for (int n = 0; n < order.length && total > limit; n++) {
+            File candidate = files[order[n]];
+            long length = candidate.length();
+            if (candidate.delete())
+                total -= length;
+        }
+    }
+
+    static void writeVarint(DataOutputStream out, int value) throws IOException {
+        while ((value & ~0x7f) != 0) {
+            out.writeByte((value & 0x7f) | 0x80);
+            value >>>= 7;
+        }
+        out.writeByte(value);
+    }
+
+    static int readVarint(DataInputStream in) throws IOException {
+        int value = 0;
+        for (int shift = 0; shift < 32; shift += 7) {
+            int b = in.readUnsignedByte();
+            value |= (b & 0x7f) << shift;
+            if ((b & 0x80) == 0)
+                return value;
+        }
+        throw new IOException("Invalid varint");
+    }
+
+    static int zigzag(int value) {
+        return (value << 1) ^ (value >> 31);
+    }
+
+    static int unzigzag(int value) {
+        return (value >>> 1) ^ -(value & 1);
+    }
+
+    /**
+     * Replayed match result over the current line.
+     */
+    static class Spans implements MatchResult {
+        String line;
+        int groups;
+        int[] starts = new int[32];
+        int[] ends = new int[32];
+
+        void reset(String line, int groups) {
+            this.line = line;
+            this.groups = groups;
+            if (starts.length <= groups) {
+                starts = new int[groups + 1];
+                ends = new int[groups + 1];
+            }
+        }
+
+        @Override
+        public int start() {
+            return starts[0];
+        }
+
+        @Override
+        public int start(int group) {
+            if (group < 0 || group > groups)
+                throw new IndexOutOfBoundsException("No group " + group);
+            return starts[group];
+        }
+
+        @Override
+        public int end() {
+            return ends[0];
+        }
+
+        @Override
+        public int end(int group) {
+            if (group < 0 || group > groups)
+                throw new IndexOutOfBoundsException("No group " + group);
+            return ends[group];
+        }
+
+        @Override
+        public String group() {
+            return group(0);
+        }
+
+        @Override
+        public String group(int group) {
+            int start = start(group);
+            return start >= 0 ? line.substring(start, ends[group]) : null;
+        }
+
+        @Override
+        public int groupCount() {
+            return groups;
+        }
+    }
+}
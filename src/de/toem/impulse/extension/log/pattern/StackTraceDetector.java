@@ -0,0 +1,121 @@
+package de.toem.impulse.extension.log.pattern;
+
+/**
+ * Detector for stack trace continuation lines.
+ *
+ * Java and Python stack traces are written as many lines that do not match any
+ * log line pattern. This detector classifies such lines with constant-time
+ * prefix checks, so the pattern log reader can append them to the current
+ * message without evaluating any regular expression.
+ *
+ * Recognized lines:
+ * - Java frames ("\tat ...", "    at ..."), "Caused by: ...", "Suppressed: ...",
+ *   "... N more" and "Exception in thread ..."
+ * - Java exception headers (e.g. "java.lang.IllegalStateException: ...")
+ * - Python "Traceback (most recent call last):", frames ("  File ...") with their
+ *   indented source lines, and the final "ExceptionType: message" line that ends
+ *   the traceback (any exception type, e.g. "SystemExit: 1" or "KeyboardInterrupt")
+ * - Python chaining lines between tracebacks ("During handling of the above
+ *   exception, ..." and "The above exception was the direct cause of ...")
+ *
+ * Implementation notes:
+ * - The detector keeps a small state to recognize lines that only belong to a
+ *   trace in context (source lines and the final line of a Python traceback).
+ * - Not thread-safe; use one instance per import.
+ *
+ * Copyright (c) 2013-2025 Thomas Haber
+ * All rights reserved.
+ *
+ */
+public class StackTraceDetector {
+
+    // Inside a Python traceback
+    private boolean traceback;
+    // The previous line ended a Python traceback
+    private boolean ended;
+
+    /**
+     * Returns true if the given line continues a stack trace.
+     *
+     * @param line the line (not empty)
+     * @return true if the line is a continuation line
+     */
+    public boolean isContinuation(String line) {
+        int len = line.length();
+        int pos = 0;
+        while (pos < len && (line.charAt(pos) == ' ' || line.charAt(pos) == '\t'))
+            pos++;
+        boolean indented = pos > 0;
+
+        if (indented) {
+            // java frames and trailers
+            if (line.startsWith("at ", pos) || line.startsWith("...", pos) || line.startsWith("Caused by:", pos) || line.startsWith("Suppressed:", pos))
+                return true;
+            // python frames and source lines
+            if (line.startsWith("File \"", pos) || traceback)
+                return true;
+            return false;
+        }
+
+        if (line.startsWith("Caused by:") || line.startsWith("... ") || line.startsWith("Exception in thread "))
+            return true;
+        if (line.startsWith("Traceback (most recent call last)")) {
+            traceback = true;
+            ended = false;
+            return true;
+        }
+        if (traceback) {
+            // the exception line ends a python traceback
+            traceback = false;
+            ended = isExceptionType(line);
+            return ended;
+        }
+        if (ended && (line.startsWith("During handling of the above exception") || line.startsWith("The above exception was the direct cause")))
+            return true;
+        ended = false;
+        return isExceptionName(line);
+    }
+
+    /**
+     * Resets the detector state (e.g. when a new message starts).
+     */
+    public void reset() {
+        traceback = false;
+        ended = false;
+    }
+
+    /**
+     * Checks for a qualified Java exception name at the line start, followed by ':' or
+     * the line end. Qualified names are required to avoid matching ordinary text.
+     */
+    private static boolean isExceptionName(String line) {
+        int len = line.length();
+        int pos = 0;
+        boolean dot = false;
+        while (pos < len) {
+            char c = line.charAt(pos);
+            if (c == '.')
+                dot = true;
+            else if (!Character.isJavaIdentifierPart(c))
+                break;
+            pos++;
+        }
+        if (pos == 0 || !Character.isJavaIdentifierStart(line.charAt(0)) || !dot)
+            return false;
+        if (pos < len && line.charAt(pos) != ':')
+            return false;
+        return line.startsWith("Exception", pos - 9) || line.startsWith("Error", pos - 5) || line.startsWith("Throwable", pos - 9);
+    }
+
+    /**
+     * Checks for the exception line of a Python traceback: a (dotted) type name of
+     * any kind at the line start, followed by ':' or the line end.
+     */
+    private static boolean isExceptionType(String line) {
+        int len = line.length();
+        int pos = 0;
+        while (pos < len && (Character.isJavaIdentifierPart(line.charAt(pos)) || line.charAt(pos) == '.'))
+            pos++;
+        return pos > 0 && Character.isJavaIdentifierStart(line.charAt(0)) && (pos == len || line.charAt(pos) == ':');
+    }
+}
@@ -0,0 +1,130 @@
+package de.toem.impulse.extension.log.pattern;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.charset.Charset;
+import java.util.function.Predicate;
+
+/**
+ * Locator for the start of the tail of a line-oriented log file.
+ *
+ * For triage, the most recent part of a log is often the only part of
+ * interest. This locator seeks to the end of the file, goes back by the
+ * requested tail size and scans backwards in large blocks for a line start
+ * that is a safe message boundary (e.g. a line matching a pattern that starts
+ * a new message). The reader then skips everything before that offset.
+ *
+ * Key features:
+ * - Backward block scan; only the tail and a bounded look-behind are read
+ * - Message boundary test on decoded lines (e.g. START patterns)
+ * - Compressed files and multi-byte line feeds (UTF-16/32) are not supported;
+ *   then the locator returns 0 (read the whole file)
+ *
+ * Implementation notes:
+ * - Offsets are byte offsets of the file.
+ * - The look-behind for a boundary is limited; if no boundary is found, the
+ *   first line start after the tail offset is used.
+ *
+ * Copyright (c) 2013-2025 Thomas Haber
+ * All rights reserved.
+ *
+ */
+public class TailLocator {
+
+    // Block size of the backward scan
+    private static final int BLOCK = 1 << 16;
+    // Maximum look-behind for a message boundary
+    private static final long MAX_LOOK_BEHIND = 4L << 20;
+    // Maximum length of a tested line
+    private static final int MAX_LINE = 1 << 16;
+
+    private TailLocator() {
+    }
+
+    /**
+     * Returns the byte offset where the tail of the given file starts.
+     *
+     * @param file the log file
+     * @param charset the charset of the file
+     * @param tailBytes the requested tail size in bytes
+     * @param boundary predicate that returns true for lines that start a message
+     * @return the offset of the first line of the tail, or 0 to read the whole file
+     * @throws IOException on read errors
+     */
+    public static long locate(File file, Charset charset, long tailBytes, Predicate<String> boundary) throws IOException {
+        if (file == null || !file.isFile() || tailBytes <= 0 || "\n".getBytes(charset).length != 1)
+            return 0;
+        try (RandomAccessFile raf = new RandomAccessFile(file, "r")) {
+            long length = raf.length();
+            if (length <= tailBytes || isCompressed(raf))
+                return 0;
+
+            // first line start at or before the cut
+            long cut = length - tailBytes;
+            long start = lineStart(raf, cut);
+            long fallback = start;
+
+            // go back line by line until a message boundary
+            byte[] line = new byte[MAX_LINE];
+            while (start > 0 && cut - start <= MAX_LOOK_BEHIND) {
+                raf.seek(start);
+                int len = raf.read(line, 0, line.length);
+                int end = 0;
+                while (end < len && line[end] != '\n' && line[end] != '\r')
+                    end++;
+                if (end > 0 && boundary.test(new String(line, 0, end, charset)))
+                    return start;
+                start = lineStart(raf, start - 1);
+            }
+            return fallback;
+        }
+    }
+
+    // ========================================================================================================================
+    // Internal
+    // ========================================================================================================================
+
+    /**
+     * Returns the start of the line that contains the given offset, scanning backwards
+     * in blocks.
+     */
+    private static long lineStart(RandomAccessFile raf, long offset) throws IOException {
+        byte[] block = new byte[BLOCK];
+        long end = offset;
+        while (end > 0) {
+            long begin = Math.max(0, end - BLOCK);
+            int len = (int) (end - begin);
+            raf.seek(begin);
+            raf.readFully(block, 0, len);
+            for (int n = len - 1; n >= 0; n--)
+                if (block[n] == '\n')
+                    return begin + n + 1;
+            end = begin;
+        }
+        return 0;
+    }
+
+    /**
+     * Returns true if the file starts with the magic number of a common compression format.
+     */
+    static boolean isCompressed(File file) throws IOException {
+        try (RandomAccessFile raf = new RandomAccessFile(file, "r")) {
+            return isCompressed(raf);
+        }
+    }
+
+    private static boolean isCompressed(RandomAccessFile raf) throws IOException {
+        byte[] magic = new byte[4];
+        raf.seek(0);
+        int len = raf.read(magic);
+        if (len < 2)
+            return false;
+        int b0 = magic[0] & 0xff, b1 = magic[1] & 0xff;
+        return (b0 == 0x1f && b1 == 0x8b) // gzip
+                || (b0 == 'P' && b1 == 'K') // zip
+                || (b0 == 'B' && b1 == 'Z') // bzip2
+                || (b0 == 0xfd && b1 == '7') // xz
+                || (b0 == 0x28 && b1 == 0xb5); // zstd
+    }
+}
@@ -0,0 +1,259 @@
+package de.toem.impulse.extension.log.xml;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Compiled matcher for the element paths of XML log options.
+ *
+ * An option matches an element if its element name equals the element name
+ * (or is a wildcard) and its parent path is a suffix of the path of the parent
+ * element. All parent paths are compiled into one Aho-Corasick automaton over
+ * interned element name symbols; the automaton state of an element is derived
+ * from the state of its parent with a single table lookup. Each state holds the
+ * first matching option for every known element name, so the option of a
+ * start element is found without building path strings or testing the options
+ * one by one.
+ *
+ * Key features:
+ * - One transition per element (state stack instead of path strings)
+ * - First option in option order wins, like the linear matching
+ * - Element names that do not occur in any option share one symbol
+ * - Namespace-aware symbols for (namespace URI, local name) pairs, keyed in
+ *   Clark notation ("{uri}local"); repeated parser-created names are found
+ *   by reference in a small identity cache
+ *
+ * Implementation notes:
+ * - Paths are compared segment by segment; this equals the former
+ *   path.endsWith(parentPath) test of segment-aligned parent paths.
+ * - The tables are dense (states x symbols); both are small for typical
+ *   option sets.
+ * - Immutable after construction (apart from the identity cache, which holds
+ *   immutable entries); a matcher may be shared by threads.
+ *
+ * Copyright (c) 2013-2025 Thomas Haber
+ * All rights reserved.
+ *
+ */
+public class ElementPathMatcher {
+
+    // Root state (empty path)
+    public static final int ROOT = 0;
+    // No matching option
+    public static final int NO_MATCH = -1;
+
+    // Size of the identity cache of namespace-aware symbols
+    private static final int CACHE = 64;
+
+    // Symbols of known element names
+    private final Map<String, Integer> symbols = new HashMap<>();
+    // Identity cache of namespace-aware symbols
+    private final Cached[] cache = new Cached[CACHE];
+    // Symbol of unknown element names
+    private final int unknown;
+    // Transitions by state and symbol
+    private final int[][] next;
+    // First matching option by state and symbol (NO_MATCH if none)
+    private final int[][] match;
+
+    /**
+     * Constructs an ElementPathMatcher.
+     *
+     * @param names the element names of the options (null for any element)
+     * @param parentPaths the parent paths of the options, e.g. "/log4j:event" (null for any path)
+     */
+    public ElementPathMatcher(String[] names, String[] parentPaths) {
+        this(names, split(parentPaths));
+    }
+
+    /**
+     * Constructs an ElementPathMatcher from parent path segments.
+     *
+     * @param names the element names of the options (null for any element)
+     * @param parentSegments the element names of the parent paths of the options (null for any path)
+     */
+    public ElementPathMatcher(String[] names, String[][] parentSegments) {
+
+        // symbols and patterns
+        int options = names.length;
+        int[][] patterns = new int[options][];
+        for (int n = 0; n < options; n++) {
+            if (names[n] != null)
+                symbolOf(names[n]);
+            if (parentSegments[n] != null) {
+                patterns[n] = new int[parentSegments[n].length];
+                for (int i = 0; i < patterns[n].length; i++)
+                    patterns[n][i] = symbolOf(parentSegments[n][i]);
+            }
+        }
+        unknown = symbols.size();
+        int width = unknown + 1;
+
+        // trie of the parent paths
+        List<int[]> children = new ArrayList<>();
+        List<List<Integer>> terminals = new ArrayList<>();
+        children.add(newRow(width));
+        terminals.add(new ArrayList<>());
+        for (int n = 0; n < options; n++) {
+            int state = ROOT;
+            if (patterns[n] != null)
+                for (int symbol : patterns[n]) {
+                    if (children.get(state)[symbol] < 0) {
+                        children.get(state)[symbol] = children.size();
+                        children.add(newRow(width));
+                        terminals.add(new ArrayList<>());
+                    }
+                    state = children.get(state)[symbol];
+                }
+            terminals.get(state).add(n);
+        }
+
+        // failure links, transitions and matches in breadth-first order
+        int states = children.size();
+        next = new int[states][];
+        match = new int[states][];
+        int[] fail = new int[states];
+        int[] queue = new int[states];
+        int head = 0, tail = 0;
+        queue[tail++] = ROOT;
+        while (head < tail) {
+            int state = queue[head++];
+            int[] row = children.get(state);
+            next[state] = new int[width];
+            match[state] = new int[width];
+            if (state == ROOT)
+                Arrays.fill(match[state], NO_MATCH);
+            else
+                System.arraycopy(match[fail[state]], 0, match[state], 0, width);
+            for (int option : terminals.get(state))
+                for (int symbol = 0; symbol < width; symbol++)
+                    if (names[option] == null || (symbol < unknown && symbols.get(names[option]) == symbol))
+                        match[state][symbol] = first(match[state][symbol], option);
+            for (int symbol = 0; symbol < width; symbol++) {
+                if (row[symbol] >= 0) {
+                    int child = row[symbol];
+                    fail[child] = state == ROOT ? ROOT : next[fail[state]][symbol];
+                    next[state][symbol] = child;
+                    queue[tail++] = child;
+                } else
+                    next[state][symbol] = state == ROOT ? ROOT : next[fail[state]][symbol];
+            }
+        }
+    }
+
+    /**
+     * Returns the symbol of an element name.
+     *
+     * @param name the element name
+     * @return the symbol
+     */
+    public int symbol(String name) {
+        Integer symbol = symbols.get(name);
+        return symbol != null ? symbol : unknown;
+    }
+
+    /**
+     * Returns the symbol of a namespace-aware element name.
+     *
+     * @param uri the namespace URI (null or empty for none)
+     * @param localName the local name
+     * @return the symbol
+     */
+    public int symbol(String uri, String localName) {
+        int slot = (System.identityHashCode(localName) ^ System.identityHashCode(uri)) & (CACHE - 1);
+        Cached cached = cache[slot];
+        if (cached != null && cached.localName == localName && cached.uri == uri)
+            return cached.symbol;
+        int symbol = symbol(key(uri, localName));
+        cache[slot] = new Cached(uri, localName, symbol);
+        return symbol;
+    }
+
+    /**
+     * Returns the key of a namespace-aware element name in Clark notation.
+     *
+     * @param uri the namespace URI (null or empty for none)
+     * @param localName the local name
+     * @return "{uri}localName", or the local name without namespace
+     */
+    public static String key(String uri, String localName) {
+        return uri == null || uri.isEmpty() ? localName : "{" + uri + "}" + localName;
+    }
+
+    /**
+     * Returns the first option matching an element.
+     *
+     * @param parent the state of the parent element
+     * @param symbol the symbol of the element name
+     * @return the option index or NO_MATCH
+     */
+    public int match(int parent, int symbol) {
+        return match[parent][symbol];
+    }
+
+    /**
+     * Returns the state of an element.
+     *
+     * @param parent the state of the parent element
+     * @param symbol the symbol of the element name
+     * @return the state
+     */
+    public int next(int parent, int symbol) {
+        return next[parent][symbol];
+    }
+
+    // ========================================================================================================================
+    // Internal
+    // ========================================================================================================================
+
+    private int symbolOf(String name) {
+        Integer symbol = symbols.get(name);
+        if (symbol == null) {
+            symbol = symbols.size();
+            symbols.put(name, symbol);
+        }
+        return symbol;
+    }
+
+    private static String[][] split(String[] parentPaths) {
+        String[][] segments = new String[parentPaths.length][];
+        for (int n = 0; n < parentPaths.length; n++)
+            if (parentPaths[n] != null) {
+                List<String> list = new ArrayList<>();
+                for (String segment : parentPaths[n].split("/"))
+                    if (!segment.isEmpty())
+                        list.add(segment);
+                segments[n] = list.toArray(new String[list.size()]);
+            }
+        return segments;
+    }
+
+    private static int[] newRow(int width) {
+        int[] row = new int[width];
+        Arrays.fill(row, -1);
+        return row;
+    }
+
+    private static int first(int a, int b) {
+        return a == NO_MATCH ? b : Math.min(a, b);
+    }
+
+    /**
+     * Cached symbol of a namespace-aware element name (immutable, so the cache may be
+     * shared by threads).
+     */
+    private static final class Cached {
+        final String uri;
+        final String localName;
+        final int symbol;
+
+        Cached(String uri, String localName, int symbol) {
+            this.uri = uri;
+            this.localName = localName;
+            this.symbol = symbol;
+        }
+    }
+}
@@ -0,0 +1,335 @@
+package de.toem.impulse.extension.log.xml;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.SequenceInputStream;
+import java.io.StringReader;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Collections;
+
+import javax.xml.parsers.SAXParser;
+
+import org.xml.sax.Attributes;
+import org.xml.sax.InputSource;
+import org.xml.sax.SAXException;
+import org.xml.sax.helpers.AttributesImpl;
+import org.xml.sax.helpers.DefaultHandler;
+
+import de.toem.toolkits.utils.serializer.ParseException;
+
+/**
+ * Batch of top-level records of an XML fragment log, parsed on a worker thread.
+ *
+ * The worker parses the batch (wrapped into a dummy element) and records the
+ * start and end events of all elements that match an option, together with
+ * copies of their attributes and, where an option needs it, their trimmed
+ * text. The events are replayed later on the import thread in document
+ * order, where the option parsers fill and write the messages.
+ *
+ * Key features:
+ * - Element matching with the shared {@link ElementPathMatcher}
+ * - Only matched elements are recorded; text only where it is used
+ * - Unmatched elements are an error or, with skipUnmatched, skipped with
+ *   their subtree
+ * - Errors are recorded at their position, so all events before an error are
+ *   still replayed
+ *
+ * Implementation notes:
+ * - Records are top-level elements, so the element paths of a batch equal
+ *   the paths in the wrapped document.
+ * - A batch is parsed once by one thread and then only read.
+ *
+ * Copyright (c) 2013-2025 Thomas Haber
+ * All rights reserved.
+ *
+ */
+public class FragmentBatch {
+
+    // Event types
+    public static final byte START = 0;
+    public static final byte END = 1;
+
+    // The raw bytes of the records
+    private byte[] bytes;
+    // Input offset behind the batch
+    private final long end;
+    // Event types
+    private byte[] types = new byte[256];
+    // Option indices of the events
+    private int[] options = new int[256];
+    // Namespace URIs, local and qualified names of the events
+    private String[] uris = new String[256];
+    private String[] localNames = new String[256];
+    private String[] qNames = new String[256];
+    // Attributes of start events
+    private Attributes[] attributes = new Attributes[256];
+    // Texts of end events
+    private String[] texts = new String[256];
+    // Number of events
+    private int size;
+    // Error after the last event (null if none)
+    private Exception error;
+
+    /**
+     * Constructs a FragmentBatch.
+     *
+     * @param bytes the raw bytes of the records
+     * @param end the input offset behind the batch
+     */
+    public FragmentBatch(byte[] bytes, long end) {
+        this.bytes = bytes;
+        this.end = end;
+    }
+
+    /**
+     * Parses the batch and records the events.
+     *
+     * @param parser the SAX parser of the calling thread
+     * @param matcher the element path matcher
+     * @param needsText element text needed, by option index
+     * @return this batch
+     */
+    public FragmentBatch parse(SAXParser parser, ElementPathMatcher matcher, boolean[] needsText) {
+        return parse(parser, matcher, needsText, "<dummy>", false, false);
+    }
+
+    /**
+     * Parses the batch and records the events.
+     *
+     * @param parser the SAX parser of the calling thread
+     * @param matcher the element path matcher
+     * @param needsText element text needed, by option index
+     * @param wrapper the start tag of the dummy element (with namespace declarations)
+     * @param namespaceAware true to match on namespace URI and local name
+     * @param skipUnmatched true to skip unmatched elements with their subtree instead of failing
+     * @return this batch
+     */
+    public FragmentBatch parse(SAXParser parser, ElementPathMatcher matcher, boolean[] needsText, String wrapper, boolean namespaceAware,
+            boolean skipUnmatched) {
+        InputStream in = new SequenceInputStream(Collections.enumeration(Arrays.asList(new InputStream[] {
+                new ByteArrayInputStream(wrapper.getBytes(StandardCharsets.UTF_8)), new ByteArrayInputStream(bytes),
+                new ByteArrayInputStream("</dummy>".getBytes(StandardCharsets.UTF_8)), })));
+        try {
+            parser.parse(in, new Recorder(matcher, needsText, namespaceAware, skipUnmatched));
+        } catch (SAXException e) {
+            error = e.getException() instanceof ParseException ? e.getException() : e;
+        } catch (IOException e) {
+            error = e;
+        } finally {
+            bytes = null;
+        }
+        return this;
+    }
+
+    /**
+     * Returns the input offset behind the batch (a record boundary).
+     *
+     * @return the offset
+     */
+    public long getEnd() {
+        return end;
+    }
+
+    /**
+     * Returns the number of recorded events.
+     *
+     * @return the number of events
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Returns the type of an event.
+     *
+     * @param event the event index
+     * @return the event type (START or END)
+     */
+    public byte getType(int event) {
+        return types[event];
+    }
+
+    /**
+     * Returns the option index of an event.
+     *
+     * @param event the event index
+     * @return the option index
+     */
+    public int getOption(int event) {
+        return options[event];
+    }
+
+    /**
+     * Returns the namespace URI of an event.
+     *
+     * @param event the event index
+     * @return the namespace URI
+     */
+    public String getUri(int event) {
+        return uris[event];
+    }
+
+    /**
+     * Returns the local name of an event.
+     *
+     * @param event the event index
+     * @return the local name
+     */
+    public String getLocalName(int event) {
+        return localNames[event];
+    }
+
+    /**
+     * Returns the qualified name of an event.
+     *
+     * @param event the event index
+     * @return the qualified name
+     */
+    public String getQName(int event) {
+        return qNames[event];
+    }
+
+    /**
+     * Returns the attributes of a start event.
+     *
+     * @param event the event index
+     * @return the attributes (null for end events)
+     */
+    public Attributes getAttributes(int event) {
+        return attributes[event];
+    }
+
+    /**
+     * Returns the trimmed text of an end event.
+     *
+     * @param event the event index
+     * @return the text (empty if not needed, null for start events)
+     */
+    public String getText(int event) {
+        return texts[event];
+    }
+
+    /**
+     * Returns the error that stopped the parsing of the batch.
+     *
+     * @return a ParseException, SAXException or IOException, or null if none
+     */
+    public Exception getError() {
+        return error;
+    }
+
+    // ========================================================================================================================
+    // Internal
+    // ========================================================================================================================
+
+    private void add(byte type, int option, String uri, String localName, String qName, Attributes attributes, String text) {
+        if (size == types.length) {
+            types = Arrays.copyOf(types, size * 2);
+            options = Arrays.copyOf(options, size * 2);
+            uris = Arrays.copyOf(uris, size * 2);
+            localNames = Arrays.copyOf(localNames, size * 2);
+            qNames = Arrays.copyOf(qNames, size * 2);
+            this.attributes = Arrays.copyOf(this.attributes, size * 2);
+            texts = Arrays.copyOf(texts, size * 2);
+        }
+        types[size] = type;
+        options[size] = option;
+        uris[size] = uri;
+        localNames[size] = localName;
+        qNames[size] = qName;
+        this.attributes[size] = attributes;
+        texts[size] = text;
+        size++;
+    }
+
+    /**
+     * SAX handler that records the matched elements.
+     */
+    private class Recorder extends DefaultHandler {
+
+        // Element path matcher
+        private final ElementPathMatcher matcher;
+        // Element text needed, by option index
+        private final boolean[] needsText;
+        // Match on namespace URI and local name
+        private final boolean namespaceAware;
+        // Skip unmatched elements with their subtree
+        private final boolean skipUnmatched;
+        // Depth of the skipped unmatched element (-1 if none)
+        private int skipDepth = -1;
+        // Option indices of the open elements (NO_MATCH if none)
+        private int[] optionStack = new int[32];
+        // Path automaton states of the open elements
+        private int[] stateStack = new int[32];
+        // Text buffers of the open elements (reused per depth)
+        private StringBuilder[] textStack = new StringBuilder[32];
+        // Number of open elements
+        private int depth;
+
+        Recorder(ElementPathMatcher matcher, boolean[] needsText, boolean namespaceAware, boolean skipUnmatched) {
+            this.matcher = matcher;
+            this.needsText = needsText;
+            this.namespaceAware = namespaceAware;
+            this.skipUnmatched = skipUnmatched;
+        }
+
+        @Override
+        public void startElement(String uri, String localName, String qName, Attributes atts) throws SAXException {
+            if (skipDepth >= 0) {
+                depth++;
+                return;
+            }
+            int parent = depth == 0 ? ElementPathMatcher.ROOT : stateStack[depth - 1];
+            int symbol = namespaceAware ? matcher.symbol(uri, localName) : matcher.symbol(qName);
+            // the wrapper of the batch is not recorded (it exists once per batch)
+            int option = depth > 0 ? matcher.match(parent, symbol) : ElementPathMatcher.NO_MATCH;
+            if (option != ElementPathMatcher.NO_MATCH)
+                add(START, option, uri, localName, qName, new AttributesImpl(atts), null);
+            else if (depth > 0 && !"dummy".equals(qName)) {
+                if (!skipUnmatched)
+                    throw new SAXException(new ParseException(-1, "No match for element \"" + qName + "\""));
+                skipDepth = depth++;
+                return;
+            }
+            if (depth == stateStack.length) {
+                optionStack = Arrays.copyOf(optionStack, depth * 2);
+                stateStack = Arrays.copyOf(stateStack, depth * 2);
+                textStack = Arrays.copyOf(textStack, depth * 2);
+            }
+            optionStack[depth] = option;
+            stateStack[depth] = matcher.next(parent, symbol);
+            if (option != ElementPathMatcher.NO_MATCH && needsText[option])
+                textStack[depth] = XmlLogReader.reuse(textStack[depth]);
+            depth++;
+        }
+
+        @Override
+        public void endElement(String uri, String localName, String qName) throws SAXException {
+            depth--;
+            if (skipDepth >= 0) {
+                if (depth == skipDepth)
+                    skipDepth = -1;
+                return;
+            }
+            int option = optionStack[depth];
+            if (option != ElementPathMatcher.NO_MATCH)
+                add(END, option, uri, localName, qName, null, needsText[option] ? XmlLogReader.trimmed(textStack[depth]) : "");
+        }
+
+        @Override
+        public void characters(char[] ch, int start, int length) throws SAXException {
+            if (depth > 0 && skipDepth < 0) {
+                int option = optionStack[depth - 1];
+                if (option != ElementPathMatcher.NO_MATCH && needsText[option])
+                    XmlLogReader.append(textStack[depth - 1], ch, start, length);
+            }
+        }
+
+        @Override
+        public InputSource resolveEntity(String publicId, String systemId) throws SAXException, IOException {
+            return new InputSource(new StringReader(""));
+        }
+    }
+}
@@ -0,0 +1,271 @@
+package de.toem.impulse.extension.log.xml;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+
+/**
+ * Splitter of XML fragment logs into batches of complete top-level records.
+ *
+ * Fragment logs (e.g. Log4j XMLLayout files) are flat sequences of top-level
+ * elements without a document element. The splitter scans the raw bytes with a
+ * small state machine and cuts the input only behind the end of a top-level
+ * element, so every batch can be parsed on its own (wrapped into a dummy
+ * element).
+ *
+ * Key features:
+ * - Tracks element depth through start, end and empty-element tags
+ * - Ignores markup characters inside comments, CDATA sections, processing
+ *   instructions, declarations and quoted attribute values
+ * - Batches of a target size; a batch always ends at a record boundary
+ *
+ * Implementation notes:
+ * - Works on bytes; the encoding must be ASCII compatible (e.g. UTF-8,
+ *   ISO-8859-x), which is the case for fragment logs without declaration.
+ * - At the end of the input, the remaining bytes are returned as last batch,
+ *   even if the last record is incomplete; {@link #isComplete()} tells
+ *   whether the last batch ended at a record boundary. When recovering, an
+ *   incomplete last record (a log that is still written) is dropped instead
+ *   and {@link #getOffset()} is the offset of the last record boundary.
+ * - Not thread-safe; batches are handed over to other threads as byte arrays.
+ *
+ * Copyright (c) 2013-2025 Thomas Haber
+ * All rights reserved.
+ *
+ */
+public class FragmentSplitter {
+
+    // Default batch size in bytes
+    public static final int DEFAULT_BATCH = 1 << 20;
+
+    // Scanner states
+    private static final int TEXT = 0;
+    private static final int MARKUP = 1; // after '<'
+    private static final int TAG = 2; // start or end tag
+    private static final int QUOTED = 3; // attribute value
+    private static final int COMMENT = 4;
+    private static final int CDATA = 5;
+    private static final int PI = 6;
+    private static final int DECLARATION = 7;
+    private static final int BANG = 8; // after "<!"
+
+    // Start of a CDATA section after "<!"
+    private static final byte[] CDATA_OPEN = { '[', 'C', 'D', 'A', 'T', 'A', '[' };
+
+    // The input
+    private final InputStream in;
+    // Target batch size
+    private final int batchSize;
+    // Drop an incomplete last record
+    private final boolean recover;
+    // Read buffer
+    private final byte[] buffer = new byte[1 << 16];
+
+    // Bytes scanned but not yet returned
+    private ByteArrayOutputStream pending = new ByteArrayOutputStream();
+    // Scanner state
+    private int state = TEXT;
+    // Quote character of a quoted value
+    private byte quote;
+    // Tag is an end tag
+    private boolean endTag;
+    // Previous byte within the current tag, comment, CDATA section or instruction
+    private byte previous;
+    // Byte before previous (for comment and CDATA ends)
+    private byte previous2;
+    // Bytes after "<!" (comment and CDATA detection)
+    private int count;
+    // "<!" markup may still start a comment or a CDATA section
+    private boolean maybeComment;
+    private boolean maybeCdata;
+    // Nesting of brackets in declarations (e.g. internal DTD subset)
+    private int nested;
+    // Element depth
+    private int depth;
+    // Length of pending up to the last record boundary
+    private int boundary;
+    // Bytes returned so far
+    private long offset;
+    // Last batch ended at a record boundary
+    private boolean complete = true;
+    // End of input reached
+    private boolean eof;
+
+    /**
+     * Constructs a FragmentSplitter.
+     *
+     * @param in the input
+     * @param batchSize the target batch size in bytes
+     */
+    public FragmentSplitter(InputStream in, int batchSize) {
+        this(in, batchSize, false);
+    }
+
+    /**
+     * Constructs a FragmentSplitter.
+     *
+     * @param in the input
+     * @param batchSize the target batch size in bytes
+     * @param recover true to drop an incomplete last record
+     */
+    public FragmentSplitter(InputStream in, int batchSize, boolean recover) {
+        this.in = in;
+        this.batchSize = Math.max(1024, batchSize);
+        this.recover = recover;
+    }
+
+    /**
+     * Returns the next batch of complete records.
+     *
+     * @return the batch or null at the end of the input
+     * @throws IOException on read errors
+     */
+    public byte[] next() throws IOException {
+        while (!eof && boundary < batchSize) {
+            int len = in.read(buffer);
+            if (len < 0) {
+                eof = true;
+                break;
+            }
+            int base = pending.size();
+            pending.write(buffer, 0, len);
+            for (int n = 0; n < len; n++)
+                if (scan(buffer[n]))
+                    boundary = base + n + 1;
+        }
+        byte[] bytes = pending.toByteArray();
+        int length = eof && !recover ? bytes.length : boundary;
+        if (length == 0)
+            return null;
+        complete = !eof || boundary == bytes.length || isBlank(bytes, boundary, bytes.length);
+        pending = new ByteArrayOutputStream(Math.max(32, bytes.length - length + batchSize));
+        pending.write(bytes, length, bytes.length - length);
+        boundary = 0;
+        offset += length;
+        if (length == bytes.length)
+            return bytes;
+        byte[] batch = new byte[length];
+        System.arraycopy(bytes, 0, batch, 0, length);
+        return batch;
+    }
+
+    /**
+     * Returns the number of bytes returned so far (the offset of the next batch).
+     *
+     * @return the offset
+     */
+    public long getOffset() {
+        return offset;
+    }
+
+    /**
+     * Returns true if the last returned batch ended at a record boundary (or only white space follows).
+     *
+     * @return true if complete
+     */
+    public boolean isComplete() {
+        return complete;
+    }
+
+    // ========================================================================================================================
+    // Internal
+    // ========================================================================================================================
+
+    /**
+     * Scans one byte; returns true if the byte ends a top-level record.
+     */
+    private boolean scan(byte b) {
+        switch (state) {
+        case TEXT:
+            if (b == '<') {
+                state = MARKUP;
+                previous = 0;
+            }
+            return false;
+        case MARKUP:
+            if (b == '!') {
+                state = BANG;
+                count = 0;
+                maybeComment = true;
+                maybeCdata = true;
+            } else if (b == '?') {
+                state = PI;
+                previous = 0;
+            } else {
+                state = TAG;
+                endTag = b == '/';
+                previous = b;
+            }
+            return false;
+        case BANG:
+            // "<!--" starts a comment, "<![CDATA[" a CDATA section, anything else a declaration
+            maybeComment &= count < 2 && b == '-';
+            maybeCdata &= count < CDATA_OPEN.length && b == CDATA_OPEN[count];
+            count++;
+            if (maybeComment && count == 2 || maybeCdata && count == CDATA_OPEN.length) {
+                state = maybeComment ? COMMENT : CDATA;
+                previous = 0;
+                previous2 = 0;
+            } else if (!maybeComment && !maybeCdata) {
+                state = DECLARATION;
+                nested = 0;
+                return scan(b);
+            }
+            return false;
+        case DECLARATION:
+            if (b == '[')
+                nested++;
+            else if (b == ']' && nested > 0)
+                nested--;
+            else if (b == '>' && nested == 0)
+                state = TEXT;
+            return false;
+        case COMMENT:
+            if (b == '>' && previous == '-' && previous2 == '-')
+                state = TEXT;
+            previous2 = previous;
+            previous = b;
+            return false;
+        case CDATA:
+            if (b == '>' && previous == ']' && previous2 == ']')
+                state = TEXT;
+            previous2 = previous;
+            previous = b;
+            return false;
+        case PI:
+            if (b == '>' && previous == '?')
+                state = TEXT;
+            previous = b;
+            return false;
+        case QUOTED:
+            if (b == quote)
+                state = TAG;
+            return false;
+        case TAG:
+            if (b == '"' || b == '\'') {
+                quote = b;
+                state = QUOTED;
+            } else if (b == '>') {
+                state = TEXT;
+                if (endTag)
+                    depth--;
+                else if (previous != '/')
+                    depth++;
+                else if (depth == 0)
+                    return true; // empty top-level element
+                return endTag && depth == 0;
+            }
+            previous = b;
+            return false;
+        default:
+            return false;
+        }
+    }
+
+    private static boolean isBlank(byte[] bytes, int from, int to) {
+        for (int n = from; n < to; n++)
+            if ((bytes[n] & 0xff) > ' ')
+                return false;
+        return true;
+    }
+}
@@ -0,0 +1,124 @@
+package de.toem.impulse.extension.log.xml;
+
+import javax.xml.stream.XMLStreamReader;
+
+import org.xml.sax.Attributes;
+
+/**
+ * SAX attribute view of the current start element of a StAX stream reader.
+ *
+ * The XML option parsers read attribute values through the SAX
+ * {@link Attributes} interface. This adapter lets the pull parser engine of
+ * {@link XmlLogReader} call the same option parser code without copying the
+ * attributes of each element.
+ *
+ * Implementation notes:
+ * - The view is only valid while the stream reader is positioned on the start
+ *   element; it is reused for all elements.
+ * - Qualified names are compared against prefix and local name without
+ *   building the qualified name.
+ *
+ * Copyright (c) 2013-2025 Thomas Haber
+ * All rights reserved.
+ *
+ */
+public class StreamAttributes implements Attributes {
+
+    // The stream reader positioned on a start element
+    private final XMLStreamReader reader;
+
+    /**
+     * Constructs a StreamAttributes view.
+     *
+     * @param reader the stream reader
+     */
+    public StreamAttributes(XMLStreamReader reader) {
+        this.reader = reader;
+    }
+
+    @Override
+    public int getLength() {
+        return reader.getAttributeCount();
+    }
+
+    @Override
+    public String getURI(int index) {
+        String uri = reader.getAttributeNamespace(index);
+        return uri != null ? uri : "";
+    }
+
+    @Override
+    public String getLocalName(int index) {
+        return reader.getAttributeLocalName(index);
+    }
+
+    @Override
+    public String getQName(int index) {
+        String prefix = reader.getAttributePrefix(index);
+        String local = reader.getAttributeLocalName(index);
+        return prefix == null || prefix.isEmpty() ? local : prefix + ":" + local;
+    }
+
+    @Override
+    public String getType(int index) {
+        return reader.getAttributeType(index);
+    }
+
+    @Override
+    public String getValue(int index) {
+        return reader.getAttributeValue(index);
+    }
+
+    @Override
+    public int getIndex(String uri, String localName) {
+        for (int n = 0; n < reader.getAttributeCount(); n++)
+            if (localName.equals(reader.getAttributeLocalName(n)) && uri.equals(getURI(n)))
+                return n;
+        return -1;
+    }
+
+    @Override
+    public int getIndex(String qName) {
+        for (int n = 0; n < reader.getAttributeCount(); n++)
+            if (isQName(n, qName))
+                return n;
+        return -1;
+    }
+
+    @Override
+    public String getType(String uri, String localName) {
+        int index = getIndex(uri, localName);
+        return index >= 0 ? getType(index) : null;
+    }
+
+    @Override
+    public String getType(String qName) {
+        int index = getIndex(qName);
+        return index >= 0 ? getType(index) : null;
+    }
+
+    @Override
+    public String getValue(String uri, String localName) {
+        int index = getIndex(uri, localName);
+        return index >= 0 ? getValue(index) : null;
+    }
+
+    @Override
+    public String getValue(String qName) {
+        int index = getIndex(qName);
+        return index >= 0 ? getValue(index) : null;
+    }
+
+    // ========================================================================================================================
+    // Internal
+    // ========================================================================================================================
+
+    private boolean isQName(int index, String qName) {
+        String prefix = reader.getAttributePrefix(index);
+        String local = reader.getAttributeLocalName(index);
+        if (prefix == null || prefix.isEmpty())
+            return local.equals(qName);
+        int p = prefix.length();
+        return qName.length() == p + 1 + local.length() && qName.startsWith(prefix) && qName.charAt(p) == ':' && qName.endsWith(local);
+    }
+}
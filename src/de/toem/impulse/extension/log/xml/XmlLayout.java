@@ -0,0 +1,168 @@
+package de.toem.impulse.extension.log.xml;
+
+import javax.xml.stream.XMLStreamReader;
+
+/**
+ * Well-known XML log layouts with a fixed record schema.
+ *
+ * Log4j 1.2 XMLLayout, Log4j 2 XmlLayout and the java.util.logging
+ * XMLFormatter write flat sequences of record elements below a document (or
+ * fragment wrapper) element; the fields of a record are attributes of the
+ * record element or simple child elements. A layout names the record element
+ * and the known field elements, so that the fast path of {@link XmlLogReader}
+ * can identify them with a few identity comparisons and dispatch them to
+ * pre-resolved option parsers.
+ *
+ * Key features:
+ * - Layouts for Log4j 1.2, Log4j 2 and java.util.logging
+ * - Detection from the element paths of the configured options
+ * - Element identification on prefix and local name of a stream reader
+ *   (no qualified name is built)
+ *
+ * Implementation notes:
+ * - A layout only describes element names; which option handles an element
+ *   is still decided by the element path matcher, once per document.
+ * - Immutable; the layouts are shared.
+ *
+ * Copyright (c) 2013-2025 Thomas Haber
+ * All rights reserved.
+ *
+ */
+public class XmlLayout {
+
+    // Log4j 1.2 XMLLayout
+    public static final XmlLayout LOG4J = new XmlLayout("Log4j 1.2 XMLLayout", "log4j:event", "log4j:message", "log4j:NDC", "log4j:throwable",
+            "log4j:locationInfo", "log4j:properties");
+    // Log4j 2 XmlLayout
+    public static final XmlLayout LOG4J2 = new XmlLayout("Log4j 2 XmlLayout", "Event", "Instant", "Message", "Marker", "Thrown", "ContextMap",
+            "ContextStack", "Source");
+    // java.util.logging XMLFormatter
+    public static final XmlLayout JUL = new XmlLayout("java.util.logging XMLFormatter", "record", "date", "millis", "nanos", "instant", "sequence",
+            "logger", "level", "class", "method", "thread", "message", "key", "catalog", "param", "exception");
+
+    // All layouts
+    private static final XmlLayout[] LAYOUTS = { LOG4J, LOG4J2, JUL };
+
+    // Name of the layout
+    private final String label;
+    // Qualified name, prefix ("" for none) and local name of the record element
+    private final String record;
+    private final String recordPrefix;
+    private final String recordLocal;
+    // Qualified names, prefixes and local names of the field elements
+    private final String[] children;
+    private final String[] childPrefixes;
+    private final String[] childLocals;
+
+    private XmlLayout(String label, String record, String... children) {
+        this.label = label;
+        this.record = record;
+        this.recordPrefix = prefixOf(record);
+        this.recordLocal = localOf(record);
+        this.children = children;
+        this.childPrefixes = new String[children.length];
+        this.childLocals = new String[children.length];
+        for (int n = 0; n < children.length; n++) {
+            childPrefixes[n] = prefixOf(children[n]);
+            childLocals[n] = localOf(children[n]);
+        }
+    }
+
+    /**
+     * Returns the layout whose record element is configured as an option element.
+     *
+     * @param names the element names of the options (null for any element)
+     * @return the layout or null if the options do not target a known layout
+     */
+    public static XmlLayout detect(String[] names) {
+        for (XmlLayout layout : LAYOUTS)
+            for (String name : names)
+                if (layout.record.equals(name))
+                    return layout;
+        return null;
+    }
+
+    /**
+     * Returns the name of the layout.
+     *
+     * @return the name
+     */
+    public String getLabel() {
+        return label;
+    }
+
+    /**
+     * Returns the qualified name of the record element.
+     *
+     * @return the qualified name
+     */
+    public String getRecord() {
+        return record;
+    }
+
+    /**
+     * Returns the number of field elements.
+     *
+     * @return the number of field elements
+     */
+    public int size() {
+        return children.length;
+    }
+
+    /**
+     * Returns the qualified name of a field element.
+     *
+     * @param slot the field slot
+     * @return the qualified name
+     */
+    public String getChild(int slot) {
+        return children[slot];
+    }
+
+    /**
+     * Returns true if the stream reader is positioned on a record element.
+     *
+     * @param reader the stream reader (on a start or end element)
+     * @return true for a record element
+     */
+    public boolean isRecord(XMLStreamReader reader) {
+        return is(reader, record, recordPrefix, recordLocal);
+    }
+
+    /**
+     * Returns the field slot of the element the stream reader is positioned on.
+     *
+     * @param reader the stream reader (on a start element)
+     * @return the slot or -1 for an unknown element
+     */
+    public int slotOf(XMLStreamReader reader) {
+        for (int n = 0; n < children.length; n++)
+            if (is(reader, children[n], childPrefixes[n], childLocals[n]))
+                return n;
+        return -1;
+    }
+
+    // ========================================================================================================================
+    // Internal
+    // ========================================================================================================================
+
+    /**
+     * Compares the element name; without namespace processing, readers report the
+     * qualified name as local name and no prefix.
+     */
+    private static boolean is(XMLStreamReader reader, String qName, String prefix, String local) {
+        String actualPrefix = reader.getPrefix();
+        if (actualPrefix == null || actualPrefix.isEmpty())
+            return qName.equals(reader.getLocalName());
+        return prefix.equals(actualPrefix) && local.equals(reader.getLocalName());
+    }
+
+    private static String prefixOf(String qName) {
+        int pos = qName.indexOf(':');
+        return pos >= 0 ? qName.substring(0, pos) : "";
+    }
+
+    private static String localOf(String qName) {
+        return qName.substring(qName.indexOf(':') + 1);
+    }
+}
@@ -1,5 +1,6 @@
 package de.toem.impulse.extension.log.xml;
 
+import de.toem.impulse.extension.log.common.SourcePlan;
 import de.toem.impulse.extension.log.i18n.I18n;
 import de.toem.impulse.usecase.logging.AbstractLogOption;
 import de.toem.toolkits.pattern.element.CellAnnotation;
@@ -91,6 +92,8 @@ public class XmlLogOption extends AbstractLogOption {
     @FieldAnnotation(affects = { FieldAnnotation.ALL_FIELDS })
     // Comma-separated list of attribute names to extract
     public String attributes;
+    // Plan of the source list (recreated when the list changes)
+    private transient SourcePlan sourcePlan;
 
     // source
     // Source index for element text content
@@ -131,8 +134,8 @@ public class XmlLogOption extends AbstractLogOption {
     public boolean hasValidSource(int n) {
         if (n == SOURCE_TEXT)
             return true;
-        String[] splitted = attributes != null ? attributes.split(",") : null;
-        return splitted != null && splitted.length > (n - SOURCE_ATTRIBUTE1) && n >= SOURCE_ATTRIBUTE1 ? true : false;
+        SourcePlan plan = getSourcePlan();
+        return plan != null && plan.size() > (n - SOURCE_ATTRIBUTE1) && n >= SOURCE_ATTRIBUTE1;
     }
 
     /**
@@ -144,8 +147,8 @@ public class XmlLogOption extends AbstractLogOption {
     public String getSourceIdentifier(int n) {
         if (n == SOURCE_TEXT)
             return null;
-        String[] splitted = attributes != null ? attributes.split(",") : null;
-        return splitted != null && splitted.length > (n - SOURCE_ATTRIBUTE1) && n >= SOURCE_ATTRIBUTE1 ? splitted[n - SOURCE_ATTRIBUTE1] : null;
+        SourcePlan plan = getSourcePlan();
+        return plan != null && n >= SOURCE_ATTRIBUTE1 ? plan.get(n - SOURCE_ATTRIBUTE1) : null;
     }
 
     /**
@@ -154,8 +157,23 @@ public class XmlLogOption extends AbstractLogOption {
      * @return the maximum source number
      */
     public int getMaxSource() {
-        String[] splitted = attributes != null ? attributes.split(",") : null;
-        return splitted != null ? splitted.length + SOURCE_ATTRIBUTE1 - 1 : 1;
+        SourcePlan plan = getSourcePlan();
+        return plan != null ? plan.size() + SOURCE_ATTRIBUTE1 - 1 : 1;
+    }
+
+    /**
+     * Returns the precompiled plan of the configured attributes.
+     *
+     * @return the plan, or null if no attributes are configured
+     */
+    public SourcePlan getSourcePlan() {
+        String list = attributes;
+        if (list == null)
+            return null;
+        SourcePlan plan = sourcePlan;
+        if (plan == null || !plan.isOf(list))
+            sourcePlan = plan = SourcePlan.of(list);
+        return plan;
     }
 
     /**
@@ -4,23 +4,37 @@ import java.io.ByteArrayInputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.SequenceInputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collections;
-import java.util.Stack;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 
 import javax.xml.parsers.ParserConfigurationException;
 import javax.xml.parsers.SAXParser;
-import javax.xml.parsers.SAXParserFactory;
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
 
 import org.xml.sax.Attributes;
 import org.xml.sax.InputSource;
 import org.xml.sax.SAXException;
 import org.xml.sax.helpers.DefaultHandler;
 
+import de.toem.impulse.extension.log.common.AbstractPipelineLogReader;
+import de.toem.impulse.extension.log.common.LogRecordCache;
 import de.toem.impulse.extension.log.i18n.I18n;
 import de.toem.impulse.serializer.AbstractSingleDomainRecordReader;
 import de.toem.impulse.usecase.logging.AbstractLogOption;
 import de.toem.impulse.usecase.logging.AbstractLogReader;
+import de.toem.impulse.usecase.logging.Log;
 import de.toem.toolkits.core.Utils;
 import de.toem.toolkits.pattern.element.CellAnnotation;
 import de.toem.toolkits.pattern.element.ICell;
@@ -48,14 +62,22 @@ import de.toem.toolkits.utils.serializer.ParseException;
  * Key features:
  * - Streaming XML parsing using SAX parser for memory efficiency
  * - Support for XML fragments with automatic wrapper element injection
- * - XPath-like element matching for log entry identification
+ * - XPath-like element matching for log entry identification, compiled into one path automaton
  * - Flexible attribute and text content extraction
  * - Multi-domain timestamp support (primary and secondary domains)
  * - Configurable log entry naming and tagging
  * - Custom member field extraction from XML elements and attributes
+ * - Optional record cache that replays the parsed messages of unchanged files instead of parsing
+ * - Optional reorder stage that writes slightly out-of-order messages in position order per signal
+ * - Optional pull parser engine (StAX) with an explicit event loop and skipping of unmatched subtrees
+ * - Optional parallel parsing of fragment logs in batches of records, replayed in document order
+ * - Recovery of truncated fragment logs and incremental follow of growing (live) logs
+ * - Dedicated pull loop for Log4j and java.util.logging XML layouts
+ * - Optional namespace-aware matching on (namespace URI, local name) with configurable prefixes
+ * - Pooled, non-resolving parsers shared by all imports (no DTD loading, no external entities)
  *
  * Implementation notes:
- * - This class extends {@link de.toem.impulse.usecase.logging.AbstractLogReader}
+ * - This class extends {@link AbstractPipelineLogReader} (shared message pipeline)
  *   and follows the project conventions for log processing.
  * - Uses SAX parser for streaming XML processing to handle large files efficiently
  * - Supports XPath-like element path patterns for flexible log entry identification
@@ -66,7 +88,7 @@ import de.toem.toolkits.utils.serializer.ParseException;
  * All rights reserved.
  *
  */
-public class XmlLogReader extends AbstractLogReader {
+public class XmlLogReader extends AbstractPipelineLogReader {
     public static class Annotation extends AbstractSingleDomainRecordReader.Annotation {
         public static final Class<? extends ICell> multiton = Preference.class;
         public static final String id = "reader.log.xml";
@@ -82,6 +104,17 @@ public class XmlLogReader extends AbstractLogReader {
     // Members
     // ========================================================================================================================
 
+    // Xml parsers in option order (indexed by the path matcher)
+    protected XmlOptionParser[] xmlParsers;
+    // Compiled element paths of the options
+    protected ElementPathMatcher pathMatcher;
+    // Follow a growing fragment log (continue behind the last complete record on refresh)
+    protected boolean follow;
+    // Match elements on namespace URI and local name instead of the qualified name
+    protected boolean namespaceAware;
+    // Namespace URIs of the configured prefixes ("" for the default namespace)
+    protected Map<String, String> namespaces;
+
     // ========================================================================================================================
     // Constructor
     // ========================================================================================================================
@@ -112,7 +145,7 @@ public class XmlLogReader extends AbstractLogReader {
      */
     public XmlLogReader(ISerializerDescriptor descriptor, String contentName, String contentType, String cellType, String configuration,
             String[][] properties, InputStream in) {
-        super(descriptor, configuration, properties, getPropertyModel(descriptor, null), in);
+        super(descriptor, contentName, configuration, properties, getPropertyModel(descriptor, null), in);
     }
 
     // ========================================================================================================================
@@ -269,7 +302,17 @@ public class XmlLogReader extends AbstractLogReader {
      * @return the configured property model
      */
     static public PropertyModel getPropertyModel(ISerializerDescriptor descriptor, Object context) {
-        return AbstractLogReader.getPropertyModel(descriptor, context).add("xmlFragment", false, null, "xmlFragment", null, null);
+        return AbstractLogReader.getPropertyModel(descriptor, context).add("xmlFragment", false, null, "xmlFragment", null, null)
+                .add("nameInclude", "", null, null, null, "Include Names").add("nameExclude", "", null, null, null, "Exclude Names")
+                .add("messageTemplates", false, null, "Mine message templates").add("templateSimilarity", 50, null, null, null, "Template Similarity (%)")
+                .add("templateSignal", DEFAULT_TEMPLATE_SIGNAL, null, null, "Template Signal", null, null)
+                .add("cacheRecords", false, null, "Cache parsed records").add("recordCacheSize", 1024, null, null, null, "Record Cache Size (MB)")
+                .add("reorderWindow", 0, null, null, null, "Reorder Window (domain units)").add("reorderEntries", 0, null, null, null, "Reorder Entries")
+                .add("firstScreenMessages", 0, null, null, null, "First Screen (messages)").add("firstScreenSpan", 0, null, null, null, "First Screen Span (domain units)")
+                .add("pullParser", false, null, "Use pull parser").add("skipUnmatched", false, null, "Skip unmatched elements")
+                .add("parallelFragments", 0, null, null, null, "Parallel Fragment Parsers").add("recoverTruncated", false, null, "Recover truncated log")
+                .add("followGrowing", false, null, "Follow growing log").add("layoutFastPath", false, null, "Fast path for Log4j/java.util.logging layouts")
+                .add("namespaceAware", false, null, "Namespace aware matching").add("namespaces", "", null, null, "Namespaces (prefix=uri, ...)", null, null);
     }
 
     // ========================================================================================================================
@@ -316,29 +359,122 @@ public class XmlLogReader extends AbstractLogReader {
      * @throws IOException if an I/O error occurs during reading
      */
     @Override
-    protected void parseLogs(IProgress progress, InputStream in) throws ParseException, IOException {
-
-        if (getTypedProperty("xmlFragment", Boolean.class)) {
+    protected void parseContent(IProgress progress, InputStream in) throws ParseException, IOException {
+
+        boolean fragment = getTypedProperty("xmlFragment", Boolean.class);
+        int parallel = fragment ? Utils.parseInt(getProperty("parallelFragments"), 0) : 0;
+        follow = fragment && getTypedProperty("followGrowing", Boolean.class);
+        boolean recover = follow || (fragment && getTypedProperty("recoverTruncated", Boolean.class));
+        namespaceAware = getTypedProperty("namespaceAware", Boolean.class);
+        namespaces = parseNamespaces(getProperty("namespaces"));
+        if (fragment && parallel <= 0 && !recover) {
             in = new SequenceInputStream(Collections.enumeration(Arrays.asList(
-                    new InputStream[] { new ByteArrayInputStream("<dummy>".getBytes()), in, new ByteArrayInputStream("</dummy>".getBytes()), })));
+                    new InputStream[] { new ByteArrayInputStream(fragmentWrapper().getBytes(StandardCharsets.UTF_8)), in,
+                            new ByteArrayInputStream("</dummy>".getBytes(StandardCharsets.UTF_8)), })));
         }
 
+        // message templates, name filter, reorder stage
+        initPipeline();
+
+        // element path automaton
+        pathMatcher = createPathMatcher();
+
         // extract log data
         LogMessage message = new LogMessage();
-        Stack<XmlOptionParser> parserStack = new Stack<>();
-        Stack<StringBuilder> textStack = new Stack<>();
-        Stack<String> pathStack = new Stack<>();
 
-        // SAX parser
-        SAXParserFactory factory = SAXParserFactory.newInstance();
-        factory.setValidating(false);
+        // record cache
+        recordCache = openRecordCache();
+        if (recordCache != null && recordCache.isReplaying() && !recordCache.isResuming()) {
+            try {
+                if (!replayMessages(progress, message) && (progress == null || !progress.isCanceled()))
+                    throw new ParseException(-1, "Invalid record cache");
+                flushReorder();
+            } finally {
+                closeRecordCache(false);
+            }
+            return;
+        }
+
+        // follow a growing log: replay the records up to the last boundary and continue there
+        long startOffset = 0;
+        if (recordCache != null && recordCache.isResuming()) {
+            if (!replayMessages(progress, message)) {
+                closeRecordCache(false);
+                if (progress == null || !progress.isCanceled())
+                    throw new ParseException(-1, "Invalid record cache");
+                return;
+            }
+            startOffset = recordCache.getResumeOffset();
+            if (!recordCache.resume()) {
+                recordCache = null;
+                throw new ParseException(-1, "Invalid record cache");
+            }
+            skipBytes(in, startOffset);
+        }
+
+        // parallel or recovering fragment parsing
+        if (parallel > 0 || recover) {
+            try {
+                long end = parseParallel(progress, in, message, Math.max(1, parallel), recover);
+
+                // write final message if not already done
+                if (!message.isEmpty())
+                    writeMessage(message);
+                flushReorder();
+                // a failed batch (reported XML error) never completes the record cache
+                boolean completed = end >= 0 && (progress == null || !progress.isCanceled());
+                if (follow) {
+                    // keep the records as partial cache; the next refresh continues behind the last complete record
+                    if (completed && recordCache != null)
+                        recordCache.checkpoint(0, startOffset + end);
+                    closeRecordCache(false);
+                } else
+                    closeRecordCache(completed);
+            } finally {
+                closeRecordCache(false);
+            }
+            return;
+        }
+
+        // pull parser engine (dedicated loop for well-known layouts, which are matched on qualified names)
+        XmlLayout layout = !namespaceAware && getTypedProperty("layoutFastPath", Boolean.class) ? XmlLayout.detect(optionNames()) : null;
+        if (layout != null || getTypedProperty("pullParser", Boolean.class)) {
+            try {
+                if (layout != null)
+                    parseLayout(progress, in, message, layout);
+                else
+                    parseStream(progress, in, message);
+
+                // write final message if not already done
+                if (!message.isEmpty())
+                    writeMessage(message);
+                flushReorder();
+                closeRecordCache(progress == null || !progress.isCanceled());
+            } catch (XMLStreamException e) {
+                addParseExceptionMessage(new SAXException(e));
+                flushTolerated(message);
+            } finally {
+                closeRecordCache(false);
+            }
+            return;
+        }
 
-        SAXParser saxParser;
+        // SAX parser (pooled, see XmlParsers)
+        SAXParser saxParser = null;
         try {
-            saxParser = factory.newSAXParser();
+            saxParser = XmlParsers.acquire(namespaceAware);
 
             saxParser.parse(in, new DefaultHandler() {
 
+            // Matched parsers of the open elements (null if none)
+            XmlOptionParser[] parserStack = new XmlOptionParser[32];
+            // Path automaton states of the open elements
+            int[] stateStack = new int[32];
+            // Text buffers of the open elements (reused per depth)
+            StringBuilder[] textStack = new StringBuilder[32];
+            // Number of open elements
+            int depth;
+
             /**
              * Called at the start of document parsing.
              * 
@@ -376,28 +512,28 @@ public class XmlLogReader extends AbstractLogReader {
             @Override
             public void startElement(String uri, String localName, String qName, Attributes attributes) throws SAXException {
 
-                    boolean match = false;
-                    String path = pathStack.isEmpty() ? "/" : pathStack.peek();
-                    for (AbstractOptionParser p : parser) {
-                        XmlOptionParser parser = (XmlOptionParser) p;
-                        if (parser.matches(path, qName)) {
-                            parserStack.push(parser);
-                            try {
-                                parser.startElement(uri, localName, qName, attributes, message);
-                            } catch (ParseException e) {
-                                throw new SAXException(e);
-                            }
-                            match = true;
-                            break;
+                    int parent = depth == 0 ? ElementPathMatcher.ROOT : stateStack[depth - 1];
+                    int symbol = namespaceAware ? pathMatcher.symbol(uri, localName) : pathMatcher.symbol(qName);
+                    int index = pathMatcher.match(parent, symbol);
+                    XmlOptionParser parser = index != ElementPathMatcher.NO_MATCH ? xmlParsers[index] : null;
+                    if (parser != null) {
+                        try {
+                            parser.startElement(uri, localName, qName, attributes, message);
+                        } catch (ParseException e) {
+                            throw new SAXException(e);
                         }
+                    } else if (!"dummy".equals(qName))
+                        throw new SAXException(new ParseException(-1, "No match for element \"" + qName + "\""));
+                    if (depth == stateStack.length) {
+                        parserStack = Arrays.copyOf(parserStack, depth * 2);
+                        stateStack = Arrays.copyOf(stateStack, depth * 2);
+                        textStack = Arrays.copyOf(textStack, depth * 2);
                     }
-                    if (!match) {
-                        if (!"dummy".equals(qName))
-                            throw new SAXException(new ParseException(-1, "No match for element \"" + qName + "\""));
-                        parserStack.push(null);
-                    }
-                    textStack.push(new StringBuilder());
-                    pathStack.push(path + "/" + qName);
+                    parserStack[depth] = parser;
+                    stateStack[depth] = pathMatcher.next(parent, symbol);
+                    if (parser != null && parser.needsText())
+                        textStack[depth] = reuse(textStack[depth]);
+                    depth++;
                     super.startElement(uri, localName, qName, attributes);
                 }
 
@@ -414,12 +550,12 @@ public class XmlLogReader extends AbstractLogReader {
              */
             @Override
             public void endElement(String uri, String localName, String qName) throws SAXException {
-                    XmlOptionParser parser = parserStack.pop();
-                    String text = textStack.pop().toString().trim();
-                    pathStack.pop();
+                    depth--;
+                    XmlOptionParser parser = parserStack[depth];
+                    parserStack[depth] = null;
                     if (parser != null)
                         try {
-                            parser.endElement(uri, localName, qName, text, message);
+                            parser.endElement(uri, localName, qName, parser.needsText() ? trimmed(textStack[depth]) : "", message);
 
                         } catch (ParseException e) {
                             throw new SAXException(e);
@@ -439,9 +575,10 @@ public class XmlLogReader extends AbstractLogReader {
              */
             @Override
             public void characters(char[] ch, int start, int length) throws SAXException {
-                if (length > 0) {
-                    textStack.peek().append(ch, start, length);
-                    super.characters(ch, start, length);
+                if (depth > 0) {
+                    XmlOptionParser parser = parserStack[depth - 1];
+                    if (parser != null && parser.needsText())
+                        append(textStack[depth - 1], ch, start, length);
                 }
             }
 
@@ -464,7 +601,9 @@ public class XmlLogReader extends AbstractLogReader {
 
             // write final message if not already done
             if (!message.isEmpty())
-                write(message);
+                writeMessage(message);
+            flushReorder();
+            closeRecordCache(progress == null || !progress.isCanceled());
 
         } catch (ParserConfigurationException e) {
         } catch (SAXException e) {
@@ -472,7 +611,11 @@ public class XmlLogReader extends AbstractLogReader {
                 throw (ParseException) e.getException();
             // Allow normal Sax exceptions
             addParseExceptionMessage(e);
+            flushTolerated(message);
             // throw new ParseException("Invalid XML structure", e);
+        } finally {
+            XmlParsers.release(saxParser);
+            closeRecordCache(false);
         }
 
         // lineNo++;
@@ -480,6 +623,661 @@ public class XmlLogReader extends AbstractLogReader {
 
     }
 
+    /**
+     * Writes the open message and all messages of the reorder stage after a tolerated
+     * XML error (e.g. a truncated log). The record cache is not committed.
+     *
+     * @param message the open message
+     * @throws ParseException on write errors
+     */
+    private void flushTolerated(LogMessage message) throws ParseException {
+        if (!message.isEmpty())
+            writeMessage(message);
+        flushReorder();
+    }
+
+    /**
+     * Parses XML log data with a StAX pull parser.
+     *
+     * The events are processed in an explicit loop with array-backed stacks for the
+     * matched option parsers, element paths and text buffers (text buffers are reused
+     * per depth). Cancellation is checked between events. With the "skipUnmatched"
+     * property, elements without a matching option are skipped with their subtree
+     * instead of failing the import.
+     *
+     * @param progress progress/cancellation interface
+     * @param in the input stream containing XML log data
+     * @param message the message to fill
+     * @throws ParseException if an element has no matching option or values cannot be parsed
+     * @throws XMLStreamException on XML syntax errors
+     */
+    protected void parseStream(IProgress progress, InputStream in, LogMessage message) throws ParseException, XMLStreamException {
+
+        boolean skipUnmatched = getTypedProperty("skipUnmatched", Boolean.class);
+
+        // stacks
+        XmlOptionParser[] parserStack = new XmlOptionParser[32];
+        int[] stateStack = new int[32];
+        StringBuilder[] textStack = new StringBuilder[32];
+        int depth = 0;
+
+        XMLStreamReader reader = createStreamReader(in);
+        try {
+            StreamAttributes attributes = new StreamAttributes(reader);
+            long events = 0;
+            while (reader.hasNext() && (progress == null || !progress.isCanceled())) {
+                switch (reader.next()) {
+                case XMLStreamConstants.START_ELEMENT: {
+                    String qName = qName(reader);
+                    int parent = depth == 0 ? ElementPathMatcher.ROOT : stateStack[depth - 1];
+                    int symbol = symbolOf(reader, qName);
+                    int index = pathMatcher.match(parent, symbol);
+                    XmlOptionParser matching = index != ElementPathMatcher.NO_MATCH ? xmlParsers[index] : null;
+                    if (matching == null) {
+                        if (skipUnmatched) {
+                            skipSubtree(reader);
+                            break;
+                        }
+                        if (!"dummy".equals(qName))
+                            throw new ParseException(-1, "No match for element \"" + qName + "\"");
+                    } else
+                        matching.startElement(reader.getNamespaceURI(), reader.getLocalName(), qName, attributes, message);
+                    if (depth == parserStack.length) {
+                        parserStack = Arrays.copyOf(parserStack, depth * 2);
+                        stateStack = Arrays.copyOf(stateStack, depth * 2);
+                        textStack = Arrays.copyOf(textStack, depth * 2);
+                    }
+                    parserStack[depth] = matching;
+                    stateStack[depth] = pathMatcher.next(parent, symbol);
+                    if (matching != null && matching.needsText())
+                        textStack[depth] = reuse(textStack[depth]);
+                    depth++;
+                    break;
+                }
+                case XMLStreamConstants.CHARACTERS:
+                case XMLStreamConstants.CDATA:
+                case XMLStreamConstants.SPACE:
+                    if (depth > 0 && parserStack[depth - 1] != null && parserStack[depth - 1].needsText())
+                        append(textStack[depth - 1], reader.getTextCharacters(), reader.getTextStart(), reader.getTextLength());
+                    break;
+                case XMLStreamConstants.END_ELEMENT: {
+                    depth--;
+                    XmlOptionParser matching = parserStack[depth];
+                    parserStack[depth] = null;
+                    if (matching != null)
+                        try {
+                            matching.endElement(reader.getNamespaceURI(), reader.getLocalName(), qName(reader), matching.needsText() ? trimmed(textStack[depth]) : "",
+                                    message);
+                        } catch (SAXException e) {
+                            if (e.getException() instanceof ParseException)
+                                throw (ParseException) e.getException();
+                            throw new XMLStreamException(e);
+                        }
+                    break;
+                }
+                default:
+                    break;
+                }
+                if ((++events % 10000) == 0)
+                    flushAndSetProgress(progress);
+            }
+        } finally {
+            reader.close();
+        }
+    }
+
+    /**
+     * Parses an XML fragment log with a pool of worker threads.
+     *
+     * The input is split into batches of complete top-level records
+     * ({@link FragmentSplitter}). The batches are parsed by the workers, each with its
+     * own SAX parser, into recorded element events ({@link FragmentBatch}). The import
+     * thread replays the events batch by batch in document order through the option
+     * parsers, so messages are written exactly as with the serial engines. The number
+     * of batches in flight is limited to twice the number of workers.
+     *
+     * When recovering, an incomplete last record (a log that is still written) is
+     * dropped without error.
+     *
+     * @param progress progress/cancellation interface
+     * @param in the input stream containing the XML fragments (not wrapped)
+     * @param message the message to fill
+     * @param threads the number of worker threads
+     * @param recover true to drop an incomplete last record
+     * @return the input offset behind the last replayed batch (a record boundary), or -1
+     *         if a batch ended with an XML error
+     * @throws ParseException if an element has no matching option or values cannot be parsed
+     * @throws IOException on read errors
+     */
+    protected long parseParallel(IProgress progress, InputStream in, LogMessage message, int threads, boolean recover) throws ParseException, IOException {
+
+        boolean[] needsText = new boolean[xmlParsers.length];
+        for (int n = 0; n < xmlParsers.length; n++)
+            needsText[n] = xmlParsers[n].needsText();
+
+        String wrapper = fragmentWrapper();
+        boolean skipUnmatched = getTypedProperty("skipUnmatched", Boolean.class);
+
+        ExecutorService workers = Executors.newFixedThreadPool(threads, runnable -> {
+            Thread thread = new Thread(runnable, "Xml Log Parser");
+            thread.setDaemon(true);
+            return thread;
+        });
+        ArrayDeque<Future<FragmentBatch>> inFlight = new ArrayDeque<>();
+        FragmentSplitter splitter = new FragmentSplitter(in, FragmentSplitter.DEFAULT_BATCH, recover);
+        long end = 0;
+        try {
+            boolean more = true;
+            while (progress == null || !progress.isCanceled()) {
+
+                // keep the workers busy
+                while (more && inFlight.size() < threads * 2) {
+                    byte[] bytes = splitter.next();
+                    if (bytes == null) {
+                        more = false;
+                        break;
+                    }
+                    FragmentBatch batch = new FragmentBatch(bytes, splitter.getOffset());
+                    inFlight.add(workers.submit(() -> {
+                        SAXParser saxParser = XmlParsers.acquire(namespaceAware);
+                        try {
+                            return batch.parse(saxParser, pathMatcher, needsText, wrapper, namespaceAware, skipUnmatched);
+                        } finally {
+                            XmlParsers.release(saxParser);
+                        }
+                    }));
+                }
+                if (inFlight.isEmpty())
+                    break;
+
+                // replay the next batch in document order
+                FragmentBatch batch;
+                try {
+                    batch = inFlight.poll().get();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    break;
+                } catch (ExecutionException e) {
+                    throw new ParseException(-1, "Xml fragment parser failed", e.getCause());
+                }
+                if (!replayBatch(batch, message))
+                    return -1;
+                end = batch.getEnd();
+                flushAndSetProgress(progress);
+            }
+        } finally {
+            workers.shutdownNow();
+        }
+        return end;
+    }
+
+    /**
+     * Replays the recorded events of a batch through the option parsers.
+     *
+     * @param batch the parsed batch
+     * @param message the message to fill
+     * @return false if the batch ended with an XML error (reported to the console)
+     * @throws ParseException if values cannot be parsed or an element has no matching option
+     * @throws IOException on read errors of the batch
+     */
+    private boolean replayBatch(FragmentBatch batch, LogMessage message) throws ParseException, IOException {
+        try {
+            for (int n = 0; n < batch.size(); n++) {
+                XmlOptionParser parser = xmlParsers[batch.getOption(n)];
+                if (batch.getType(n) == FragmentBatch.START)
+                    parser.startElement(batch.getUri(n), batch.getLocalName(n), batch.getQName(n), batch.getAttributes(n), message);
+                else
+                    parser.endElement(batch.getUri(n), batch.getLocalName(n), batch.getQName(n), batch.getText(n), message);
+            }
+        } catch (SAXException e) {
+            if (e.getException() instanceof ParseException)
+                throw (ParseException) e.getException();
+            addParseExceptionMessage(e);
+            return false;
+        }
+        Exception error = batch.getError();
+        if (error instanceof ParseException)
+            throw (ParseException) error;
+        if (error instanceof IOException)
+            throw (IOException) error;
+        if (error instanceof SAXException) {
+            addParseExceptionMessage((SAXException) error);
+            return false;
+        }
+        return true;
+    }
+
+    /**
+     * Returns the given text buffer cleared, or a new one. The text helpers are shared
+     * by all engines, including the fragment batches of the parallel engine.
+     */
+    static StringBuilder reuse(StringBuilder text) {
+        if (text == null)
+            return new StringBuilder();
+        text.setLength(0);
+        return text;
+    }
+
+    /**
+     * Appends character data to a text buffer. White space runs are discarded as long
+     * as the buffer is empty (they would be trimmed anyway).
+     */
+    static void append(StringBuilder text, char[] ch, int start, int length) {
+        if (text.length() == 0) {
+            int end = start + length;
+            while (start < end && ch[start] <= ' ')
+                start++;
+            length = end - start;
+        }
+        if (length > 0)
+            text.append(ch, start, length);
+    }
+
+    /**
+     * Returns the trimmed content of a text buffer.
+     */
+    static String trimmed(StringBuilder text) {
+        int end = text.length();
+        while (end > 0 && text.charAt(end - 1) <= ' ')
+            end--;
+        return end == 0 ? "" : text.substring(0, end);
+    }
+
+    /**
+     * Parses an XML log of a well-known layout (Log4j, java.util.logging) with a
+     * dedicated pull loop.
+     *
+     * The option parsers of the document element, the record element and the known
+     * field elements of the layout are resolved once per document with the element
+     * path matcher. Records and fields are then identified by their names only and
+     * dispatched directly to these parsers; no stacks are maintained and text is only
+     * collected where an option uses it. Other elements (e.g. nested exception
+     * details) are handled by the generic matching. The option parsers fill and write
+     * the messages, so the result equals the generic engines.
+     *
+     * @param progress progress/cancellation interface
+     * @param in the input stream containing XML log data
+     * @param message the message to fill
+     * @param layout the layout of the log
+     * @throws ParseException if an element has no matching option or values cannot be parsed
+     * @throws XMLStreamException on XML syntax errors
+     */
+    protected void parseLayout(IProgress progress, InputStream in, LogMessage message, XmlLayout layout) throws ParseException, XMLStreamException {
+
+        boolean skipUnmatched = getTypedProperty("skipUnmatched", Boolean.class);
+
+        // parsers and states of the layout (resolved at the document element)
+        XmlOptionParser rootParser = null;
+        XmlOptionParser recordParser = null;
+        int rootState = ElementPathMatcher.ROOT;
+        int recordState = ElementPathMatcher.ROOT;
+        XmlOptionParser[] fieldParsers = new XmlOptionParser[layout.size()];
+        int[] fieldStates = new int[layout.size()];
+
+        StringBuilder rootText = new StringBuilder();
+        StringBuilder recordText = new StringBuilder();
+        StringBuilder fieldText = new StringBuilder();
+
+        XMLStreamReader reader = createStreamReader(in);
+        try {
+            StreamAttributes attributes = new StreamAttributes(reader);
+            long events = 0;
+            int depth = 0;
+            while (reader.hasNext() && (progress == null || !progress.isCanceled())) {
+                switch (reader.next()) {
+                case XMLStreamConstants.START_ELEMENT:
+                    if (depth == 0) {
+                        String qName = qName(reader);
+                        int symbol = symbolOf(reader, qName);
+                        int index = pathMatcher.match(ElementPathMatcher.ROOT, symbol);
+                        rootParser = index != ElementPathMatcher.NO_MATCH ? xmlParsers[index] : null;
+                        if (rootParser == null) {
+                            if (skipUnmatched) {
+                                skipSubtree(reader);
+                                break;
+                            }
+                            if (!"dummy".equals(qName))
+                                throw new ParseException(-1, "No match for element \"" + qName + "\"");
+                        } else
+                            rootParser.startElement(reader.getNamespaceURI(), reader.getLocalName(), qName, attributes, message);
+                        rootText.setLength(0);
+
+                        // resolve the record and field parsers
+                        rootState = pathMatcher.next(ElementPathMatcher.ROOT, symbol);
+                        symbol = pathMatcher.symbol(layout.getRecord());
+                        index = pathMatcher.match(rootState, symbol);
+                        recordParser = index != ElementPathMatcher.NO_MATCH ? xmlParsers[index] : null;
+                        recordState = pathMatcher.next(rootState, symbol);
+                        for (int n = 0; n < fieldParsers.length; n++) {
+                            symbol = pathMatcher.symbol(layout.getChild(n));
+                            index = pathMatcher.match(recordState, symbol);
+                            fieldParsers[n] = index != ElementPathMatcher.NO_MATCH ? xmlParsers[index] : null;
+                            fieldStates[n] = pathMatcher.next(recordState, symbol);
+                        }
+                        depth = 1;
+                    } else if (depth == 1 && layout.isRecord(reader)) {
+                        if (recordParser == null) {
+                            if (skipUnmatched) {
+                                skipSubtree(reader);
+                                break;
+                            }
+                            throw new ParseException(-1, "No match for element \"" + layout.getRecord() + "\"");
+                        }
+                        recordParser.startElement(reader.getNamespaceURI(), reader.getLocalName(), layout.getRecord(), attributes, message);
+                        recordText.setLength(0);
+                        depth = 2;
+                    } else if (depth == 2) {
+                        int slot = layout.slotOf(reader);
+                        if (slot >= 0)
+                            parseElement(reader, layout.getChild(slot), fieldParsers[slot], fieldStates[slot], attributes, fieldText, message, skipUnmatched);
+                        else
+                            parseElement(reader, recordState, attributes, message, skipUnmatched);
+                    } else
+                        parseElement(reader, rootState, attributes, message, skipUnmatched);
+                    break;
+                case XMLStreamConstants.CHARACTERS:
+                case XMLStreamConstants.CDATA:
+                case XMLStreamConstants.SPACE:
+                    if (depth == 2 && recordParser.needsText())
+                        append(recordText, reader.getTextCharacters(), reader.getTextStart(), reader.getTextLength());
+                    else if (depth == 1 && rootParser != null && rootParser.needsText())
+                        append(rootText, reader.getTextCharacters(), reader.getTextStart(), reader.getTextLength());
+                    break;
+                case XMLStreamConstants.END_ELEMENT:
+                    if (depth == 2) {
+                        endElement(reader, recordParser, layout.getRecord(), recordParser.needsText() ? trimmed(recordText) : "", message);
+                        depth = 1;
+                    } else if (depth == 1) {
+                        if (rootParser != null)
+                            endElement(reader, rootParser, qName(reader), rootParser.needsText() ? trimmed(rootText) : "", message);
+                        depth = 0;
+                    }
+                    break;
+                default:
+                    break;
+                }
+                if ((++events % 10000) == 0)
+                    flushAndSetProgress(progress);
+            }
+        } finally {
+            reader.close();
+        }
+    }
+
+    /**
+     * Parses the element the stream reader is positioned on, including its subtree,
+     * with the generic element matching.
+     */
+    private void parseElement(XMLStreamReader reader, int parentState, StreamAttributes attributes, LogMessage message, boolean skipUnmatched)
+            throws ParseException, XMLStreamException {
+        String qName = qName(reader);
+        int symbol = symbolOf(reader, qName);
+        int index = pathMatcher.match(parentState, symbol);
+        XmlOptionParser parser = index != ElementPathMatcher.NO_MATCH ? xmlParsers[index] : null;
+        parseElement(reader, qName, parser, pathMatcher.next(parentState, symbol), attributes, parser != null && parser.needsText() ? new StringBuilder() : null,
+                message, skipUnmatched);
+    }
+
+    /**
+     * Parses the element the stream reader is positioned on, including its subtree,
+     * with a resolved option parser. The reader is positioned on the end element
+     * afterwards.
+     */
+    private void parseElement(XMLStreamReader reader, String qName, XmlOptionParser parser, int state, StreamAttributes attributes, StringBuilder text,
+            LogMessage message, boolean skipUnmatched) throws ParseException, XMLStreamException {
+        if (parser == null) {
+            if (skipUnmatched) {
+                skipSubtree(reader);
+                return;
+            }
+            if (!"dummy".equals(qName))
+                throw new ParseException(-1, "No match for element \"" + qName + "\"");
+        } else
+            parser.startElement(reader.getNamespaceURI(), reader.getLocalName(), qName, attributes, message);
+        boolean needsText = parser != null && parser.needsText();
+        if (needsText)
+            text.setLength(0);
+        while (true) {
+            int event = reader.next();
+            if (event == XMLStreamConstants.END_ELEMENT)
+                break;
+            if (event == XMLStreamConstants.START_ELEMENT)
+                parseElement(reader, state, attributes, message, skipUnmatched);
+            else if (needsText && (event == XMLStreamConstants.CHARACTERS || event == XMLStreamConstants.CDATA || event == XMLStreamConstants.SPACE))
+                append(text, reader.getTextCharacters(), reader.getTextStart(), reader.getTextLength());
+        }
+        if (parser != null)
+            endElement(reader, parser, qName, needsText ? trimmed(text) : "", message);
+    }
+
+    /**
+     * Ends an element with its option parser; SAX exceptions of the parser are passed
+     * on as stream exceptions (or as the wrapped parse exception).
+     */
+    private void endElement(XMLStreamReader reader, XmlOptionParser parser, String qName, String text, LogMessage message)
+            throws ParseException, XMLStreamException {
+        try {
+            parser.endElement(reader.getNamespaceURI(), reader.getLocalName(), qName, text, message);
+        } catch (SAXException e) {
+            if (e.getException() instanceof ParseException)
+                throw (ParseException) e.getException();
+            throw new XMLStreamException(e);
+        }
+    }
+
+    /**
+     * Creates a stream reader of the shared input factory without DTD support and
+     * external entities (namespace processing only in namespace-aware mode).
+     */
+    private XMLStreamReader createStreamReader(InputStream in) throws XMLStreamException {
+        return XmlParsers.getInputFactory(namespaceAware).createXMLStreamReader(in);
+    }
+
+    /**
+     * Returns the path matcher symbol of the current element of the stream reader.
+     */
+    private int symbolOf(XMLStreamReader reader, String qName) {
+        return namespaceAware ? pathMatcher.symbol(reader.getNamespaceURI(), reader.getLocalName()) : pathMatcher.symbol(qName);
+    }
+
+    /**
+     * Returns the qualified name of the current element of the stream reader.
+     */
+    private static String qName(XMLStreamReader reader) {
+        String prefix = reader.getPrefix();
+        String local = reader.getLocalName();
+        return prefix == null || prefix.isEmpty() ? local : prefix + ":" + local;
+    }
+
+    /**
+     * Skips the current element and its subtree; the reader is positioned on the end element afterwards.
+     */
+    private static void skipSubtree(XMLStreamReader reader) throws XMLStreamException {
+        int level = 1;
+        while (level > 0 && reader.hasNext()) {
+            int event = reader.next();
+            if (event == XMLStreamConstants.START_ELEMENT)
+                level++;
+            else if (event == XMLStreamConstants.END_ELEMENT)
+                level--;
+        }
+    }
+
+    /**
+     * Compiles the element paths of all options into one automaton and collects the
+     * option parsers in option order. In namespace-aware mode, the element names are
+     * resolved to Clark notation ("{uri}local") with the configured prefixes.
+     *
+     * @return the path matcher
+     * @throws ParseException if a prefix of an element path is not configured
+     */
+    protected ElementPathMatcher createPathMatcher() throws ParseException {
+        List<XmlOptionParser> list = new ArrayList<>();
+        for (AbstractOptionParser p : parser)
+            list.add((XmlOptionParser) p);
+        xmlParsers = list.toArray(new XmlOptionParser[list.size()]);
+        String[] names = optionNames();
+        String[][] parentSegments = new String[xmlParsers.length][];
+        for (int n = 0; n < xmlParsers.length; n++) {
+            parentSegments[n] = xmlParsers[n].ppath != null ? segments(xmlParsers[n].ppath) : null;
+            if (namespaceAware) {
+                names[n] = names[n] != null ? resolveName(names[n]) : null;
+                if (parentSegments[n] != null)
+                    for (int i = 0; i < parentSegments[n].length; i++)
+                        parentSegments[n][i] = resolveName(parentSegments[n][i]);
+            }
+        }
+        return new ElementPathMatcher(names, parentSegments);
+    }
+
+    /**
+     * Resolves an element name of an option to Clark notation with the configured
+     * prefixes. Names in Clark notation are kept; names without prefix are in the
+     * default namespace if one is configured.
+     *
+     * @param name the element name (e.g. "log4j:event")
+     * @return the resolved name (e.g. "{http://jakarta.apache.org/log4j/}event")
+     * @throws ParseException if the prefix is not configured
+     */
+    protected String resolveName(String name) throws ParseException {
+        if (name.startsWith("{"))
+            return name;
+        int pos = name.indexOf(':');
+        String prefix = pos >= 0 ? name.substring(0, pos) : "";
+        String uri = namespaces.get(prefix);
+        if (uri == null && pos >= 0)
+            throw new ParseException(-1, "Unknown namespace prefix \"" + prefix + "\" of element \"" + name + "\"");
+        return ElementPathMatcher.key(uri, name.substring(pos + 1));
+    }
+
+    /**
+     * Parses the configured namespaces, e.g. "log4j=http://jakarta.apache.org/log4j/"
+     * (an empty prefix maps the default namespace).
+     *
+     * @param list the comma separated list of prefix=uri mappings
+     * @return the namespace URIs by prefix
+     * @throws ParseException if a mapping has no '='
+     */
+    protected static Map<String, String> parseNamespaces(String list) throws ParseException {
+        Map<String, String> namespaces = new LinkedHashMap<>();
+        if (!Utils.isEmpty(list))
+            for (String mapping : list.split(",")) {
+                if (mapping.trim().isEmpty())
+                    continue;
+                int pos = mapping.indexOf('=');
+                if (pos < 0)
+                    throw new ParseException(-1, "Invalid namespace mapping \"" + mapping.trim() + "\" (prefix=uri expected)");
+                namespaces.put(mapping.substring(0, pos).trim(), mapping.substring(pos + 1).trim());
+            }
+        return namespaces;
+    }
+
+    /**
+     * Returns the start tag of the dummy element of fragment logs; in namespace-aware
+     * mode it declares the configured prefixes, so that the records may use them
+     * without own declarations.
+     *
+     * @return the start tag
+     */
+    protected String fragmentWrapper() {
+        if (!namespaceAware || namespaces.isEmpty())
+            return "<dummy>";
+        StringBuilder wrapper = new StringBuilder("<dummy");
+        for (Map.Entry<String, String> namespace : namespaces.entrySet())
+            wrapper.append(namespace.getKey().isEmpty() ? " xmlns" : " xmlns:" + namespace.getKey()).append("=\"")
+                    .append(namespace.getValue().replace("&", "&amp;").replace("\"", "&quot;").replace("<", "&lt;")).append('"');
+        return wrapper.append('>').toString();
+    }
+
+    /**
+     * Splits an element path into its element names; '/' inside a namespace URI in
+     * Clark notation ("{uri}local") does not separate.
+     *
+     * @param path the element path, e.g. "/log4j:event" or "/{http://jakarta.apache.org/log4j/}event"
+     * @return the element names
+     */
+    static String[] segments(String path) {
+        List<String> segments = new ArrayList<>();
+        int start = 0;
+        while (true) {
+            int end = separator(path, start, false);
+            String segment = path.substring(start, end >= 0 ? end : path.length()).trim();
+            if (!segment.isEmpty())
+                segments.add(segment);
+            if (end < 0)
+                break;
+            start = end + 1;
+        }
+        return segments.toArray(new String[segments.size()]);
+    }
+
+    /**
+     * Returns the position of the first (or last) '/' of an element path behind the
+     * given position that is outside of braces, or -1.
+     */
+    static int separator(String path, int from, boolean last) {
+        int found = -1;
+        int braces = 0;
+        for (int n = from; n < path.length(); n++) {
+            char c = path.charAt(n);
+            if (c == '{')
+                braces++;
+            else if (c == '}' && braces > 0)
+                braces--;
+            else if (c == '/' && braces == 0) {
+                found = n;
+                if (!last)
+                    return n;
+            }
+        }
+        return found;
+    }
+
+    /**
+     * Returns the element names of the options in option order (null for any element).
+     *
+     * @return the element names
+     */
+    protected String[] optionNames() {
+        String[] names = new String[xmlParsers.length];
+        for (int n = 0; n < xmlParsers.length; n++)
+            names[n] = xmlParsers[n].name;
+        return names;
+    }
+
+    /**
+     * Returns the value index of the {@link Log#MESSAGE} member of an option parser.
+     *
+     * @param parser the option parser
+     * @return the value index or -1 if none
+     */
+    @Override
+    protected int getMessageIndex(AbstractOptionParser parser) {
+        return ((XmlOptionParser) parser).messageIndex;
+    }
+
+    /**
+     * Returns the hash of the option configuration of an XML option parser.
+     *
+     * @param parser the option parser
+     * @return the hash
+     */
+    @Override
+    protected long getOptionHash(AbstractOptionParser parser) {
+        return ((XmlOptionParser) parser).optionHash;
+    }
+
+    /**
+     * Opens the record cache if the "cacheRecords" or "followGrowing" property is set.
+     * When following, a partial cache of the appended file is resumed.
+     *
+     * @return the cache or null
+     */
+    @Override
+    protected LogRecordCache openRecordCache() {
+        return openRecordCache(getTypedProperty("cacheRecords", Boolean.class) || follow, follow, follow);
+    }
+
     /**
      * XML Option Parser for processing XML elements based on configuration.
      * 
@@ -511,6 +1309,8 @@ public class XmlLogReader extends AbstractLogReader {
 
         // Array of source attribute names indexed by source type
         protected String[] sourceAttributes;
+        // Attribute indices of the sources in the last seen element (shape cache, -1 if unknown)
+        protected int[] sourceIndices;
 
         // Attribute name for domain/timestamp extraction
         protected String domainAttribute;
@@ -522,6 +1322,12 @@ public class XmlLogReader extends AbstractLogReader {
         protected String name2Attribute;
         // Attribute name for tag extraction
         protected String tagAttribute;
+        // Value index of the message member (-1 if none)
+        int messageIndex = -1;
+        // Hash of the option configuration (record cache key)
+        final long optionHash;
+        // Element text is used by the domain, a name, the tag or a member
+        final boolean needsText;
 
         /**
          * Constructs an XmlOptionParser with the specified XML log option.
@@ -538,7 +1344,7 @@ public class XmlLogReader extends AbstractLogReader {
             super(option);
 
             if (!Utils.isEmpty(option.path)) {
-                int pos = option.path.lastIndexOf('/');
+                int pos = separator(option.path, 0, true);
                 if (pos >= 0) {
                     name = option.path.substring(pos + 1).trim();
                     ppath = option.path.substring(0, pos).trim();
@@ -561,18 +1367,42 @@ public class XmlLogReader extends AbstractLogReader {
                     String id = option.getSourceIdentifier(n);
                     sourceAttributes[n] = id;
                     if (n == domainSource)
-                        domainAttribute = option.getSourceIdentifier(n);
+                        domainAttribute = id;
                     if (n == domain2Source)
-                        domain2Attribute = option.getSourceIdentifier(n);
+                        domain2Attribute = id;
                     if (n == name1Source)
-                        name1Attribute = option.getSourceIdentifier(n);
+                        name1Attribute = id;
                     if (n == name2Source)
-                        name2Attribute = option.getSourceIdentifier(n);
+                        name2Attribute = id;
                     if (n == tagSource)
-                        tagAttribute = option.getSourceIdentifier(n);
+                        tagAttribute = id;
 
                 }
             }
+
+            sourceIndices = new int[sourceAttributes.length];
+            Arrays.fill(sourceIndices, -1);
+
+            // message member
+            for (int n = XmlLogOption.MEMBER_MIN; n <= XmlLogOption.MEMBER_MAX; n++)
+                if (memberIndex[n] >= 0 && Log.MESSAGE.equals(Utils.trim((String) option.getValue("member" + n, String.class))))
+                    messageIndex = memberIndex[n];
+            optionHash = LogRecordCache.hash(0, option);
+            needsText = (domainMode != AbstractLogOption.DOMAIN_UNDEFINED && domainSource == XmlLogOption.SOURCE_TEXT)
+                    || (domain2Mode != AbstractLogOption.DOMAIN_UNDEFINED && domain2Source == XmlLogOption.SOURCE_TEXT)
+                    || (nameMode != AbstractLogOption.NAME_UNDEFINED && nameMode != AbstractLogOption.NAME_EXPLICIT && name1Source == XmlLogOption.SOURCE_TEXT)
+                    || (name2Mode != AbstractLogOption.NAME_UNDEFINED && name2Source == XmlLogOption.SOURCE_TEXT) || memberIndex[XmlLogOption.SOURCE_TEXT] >= 0
+                    || tagSource == XmlLogOption.SOURCE_TEXT;
+        }
+
+        /**
+         * Returns true if the element text is used by this parser. For other parsers, the
+         * text of the matched elements is not buffered.
+         *
+         * @return true if the element text is needed
+         */
+        public boolean needsText() {
+            return needsText;
         }
 
         /**
@@ -617,7 +1447,7 @@ public class XmlLogReader extends AbstractLogReader {
                 return;
 
             if (action == AbstractLogOption.ACTION_START && !message.isEmpty()) {
-                write(message);
+                writeMessage(message);
                 message.clear();
             }
 
@@ -625,7 +1455,7 @@ public class XmlLogReader extends AbstractLogReader {
 
             // position
             if (domainMode != AbstractLogOption.DOMAIN_UNDEFINED && domainSource != XmlLogOption.SOURCE_TEXT) {
-                final String domainText = (domainSource > 0 && domainAttribute != null) ? attributes.getValue(domainAttribute) : null;
+                final String domainText = (domainSource > 0 && domainAttribute != null) ? getAttribute(attributes, domainSource) : null;
                 final Long position = parseDomain(domainText);
                 message.position = position;
                 message.positionParser = this;
@@ -633,7 +1463,7 @@ public class XmlLogReader extends AbstractLogReader {
             }
             // position
             if (domain2Mode != AbstractLogOption.DOMAIN_UNDEFINED && domain2Source != XmlLogOption.SOURCE_TEXT) {
-                final String domainText = (domain2Source > 0 && domain2Attribute != null) ? attributes.getValue(domain2Attribute) : null;
+                final String domainText = (domain2Source > 0 && domain2Attribute != null) ? getAttribute(attributes, domain2Source) : null;
                 final Long position = parseDomain2(domainText);
                 message.position2 = position;
                 changed |= true;
@@ -645,7 +1475,7 @@ public class XmlLogReader extends AbstractLogReader {
                     message.name1 = name0;
                 else {
                     if (name1Attribute != null) {
-                        String name = attributes.getValue(name1Attribute);
+                        String name = getAttribute(attributes, name1Source);
                         if (!Utils.isEmpty(name))
                             message.name1 = name.trim();
                     }
@@ -654,18 +1484,18 @@ public class XmlLogReader extends AbstractLogReader {
                 changed |= true;
             }
             if (name2Mode != AbstractLogOption.NAME_UNDEFINED && name2Source != XmlLogOption.SOURCE_TEXT && name2Attribute != null) {
-                String name = attributes.getValue(name2Attribute);
+                String name = getAttribute(attributes, name2Source);
                 if (!Utils.isEmpty(name))
                     message.name2 = name.trim();
                 changed |= true;
             }
 
+            boolean excluded = isExcluded(message);
             // members
-            for (int n = XmlLogOption.MEMBER_MIN; n <= XmlLogOption.MEMBER_MAX && n <= maxMemberSource; n++) {
+            for (int n = XmlLogOption.MEMBER_MIN; !excluded && n <= XmlLogOption.MEMBER_MAX && n <= maxMemberSource; n++) {
                 int widx = memberIndex[n];
                 if (n != XmlLogOption.SOURCE_TEXT && (widx >= 0 || n == tagSource)) {
-                    String name = sourceAttributes[n];
-                    String text = attributes.getValue(name);
+                    String text = getAttribute(attributes, n);
                     if (!Utils.isEmpty(text)) {
                         text = text.trim();
                         if (widx >= 0) {
@@ -692,6 +1522,31 @@ public class XmlLogReader extends AbstractLogReader {
 
         }
 
+        /**
+         * Returns the value of a source attribute. Records of a log mostly have the same
+         * attribute layout, so the index of the attribute in the last element is tried
+         * first (checked with the qualified name); only on a layout change the attribute
+         * is looked up by name.
+         *
+         * @param attributes the attributes of the element
+         * @param source the source number
+         * @return the value or null if the element has no such attribute
+         */
+        protected String getAttribute(Attributes attributes, int source) {
+            String name = sourceAttributes[source];
+            if (name == null)
+                return null;
+            int index = sourceIndices[source];
+            if (index >= 0 && index < attributes.getLength()) {
+                String qName = attributes.getQName(index);
+                if (qName == name || name.equals(qName))
+                    return attributes.getValue(index);
+            }
+            index = attributes.getIndex(name);
+            sourceIndices[source] = index;
+            return index >= 0 ? attributes.getValue(index) : null;
+        }
+
         /**
          * Processes the end of an XML element, extracting data from text content.
          * 
@@ -743,7 +1598,7 @@ public class XmlLogReader extends AbstractLogReader {
 
             // members
             int widx = memberIndex[XmlLogOption.SOURCE_TEXT];
-            if ((widx >= 0 || XmlLogOption.SOURCE_TEXT == tagSource)) {
+            if (!isExcluded(message) && (widx >= 0 || XmlLogOption.SOURCE_TEXT == tagSource)) {
                 if (!Utils.isEmpty(text)) {
                     text = text.trim();
                     if (widx >= 0) {
@@ -768,7 +1623,7 @@ public class XmlLogReader extends AbstractLogReader {
                 message.setEmpty(false);
 
             if (action == AbstractLogOption.ACTION_TERMINATE && !message.isEmpty()) {
-                write(message);
+                writeMessage(message);
                 message.clear();
             }
         }
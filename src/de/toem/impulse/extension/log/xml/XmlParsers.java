@@ -0,0 +1,137 @@
+package de.toem.impulse.extension.log.xml;
+
+import java.util.ArrayDeque;
+
+import javax.xml.parsers.ParserConfigurationException;
+import javax.xml.parsers.SAXParser;
+import javax.xml.parsers.SAXParserFactory;
+import javax.xml.stream.XMLInputFactory;
+
+import org.xml.sax.SAXException;
+
+/**
+ * Shared, hardened XML parser configuration of the XML log reader.
+ *
+ * Looking up a parser factory (service loader) and creating a parser costs
+ * more than parsing a small log file. The factories are therefore created
+ * once and configured to never resolve anything outside the document;
+ * SAX parsers are pooled and reused after reset() across imports and
+ * worker threads.
+ *
+ * Key features:
+ * - No validation, no loading of external DTDs, no external general or
+ *   parameter entities (configured on the factories)
+ * - Pools of SAX parsers with and without namespace processing
+ * - Shared StAX input factories with the same restrictions
+ *
+ * Implementation notes:
+ * - Features a parser implementation does not know are ignored; the
+ *   handlers of the reader still resolve entities to empty sources as a
+ *   fallback.
+ * - A parser is reset when it is released, so a parser of a failed import
+ *   is clean when it is acquired again. The pools are bounded.
+ * - The input factories are only used to create readers after
+ *   configuration, which is thread-safe.
+ *
+ * Copyright (c) 2013-2025 Thomas Haber
+ * All rights reserved.
+ *
+ */
+public final class XmlParsers {
+
+    // Maximum number of pooled parsers per configuration
+    private static final int MAX_POOLED = 16;
+
+    // SAX parser factories without and with namespace processing
+    private static final SAXParserFactory saxFactory = createSaxFactory(false);
+    private static final SAXParserFactory nsSaxFactory = createSaxFactory(true);
+    // Pooled SAX parsers without and with namespace processing
+    private static final ArrayDeque<SAXParser> saxParsers = new ArrayDeque<>();
+    private static final ArrayDeque<SAXParser> nsSaxParsers = new ArrayDeque<>();
+    // StAX input factories without and with namespace processing
+    private static final XMLInputFactory inputFactory = createInputFactory(false);
+    private static final XMLInputFactory nsInputFactory = createInputFactory(true);
+
+    private XmlParsers() {
+    }
+
+    /**
+     * Returns a pooled or new SAX parser.
+     *
+     * @param namespaceAware true for namespace processing
+     * @return the parser (to be released after use)
+     * @throws ParserConfigurationException if no parser can be created
+     * @throws SAXException if no parser can be created
+     */
+    public static SAXParser acquire(boolean namespaceAware) throws ParserConfigurationException, SAXException {
+        ArrayDeque<SAXParser> pool = namespaceAware ? nsSaxParsers : saxParsers;
+        synchronized (pool) {
+            SAXParser parser = pool.poll();
+            if (parser != null)
+                return parser;
+        }
+        return (namespaceAware ? nsSaxFactory : saxFactory).newSAXParser();
+    }
+
+    /**
+     * Resets a SAX parser and returns it to its pool.
+     *
+     * @param parser the parser (null is ignored)
+     */
+    public static void release(SAXParser parser) {
+        if (parser == null)
+            return;
+        try {
+            parser.reset();
+        } catch (UnsupportedOperationException e) {
+            return;
+        }
+        ArrayDeque<SAXParser> pool = parser.isNamespaceAware() ? nsSaxParsers : saxParsers;
+        synchronized (pool) {
+            if (pool.size() < MAX_POOLED)
+                pool.push(parser);
+        }
+    }
+
+    /**
+     * Returns the shared StAX input factory.
+     *
+     * @param namespaceAware true for namespace processing
+     * @return the factory (not to be configured by the caller)
+     */
+    public static XMLInputFactory getInputFactory(boolean namespaceAware) {
+        return namespaceAware ? nsInputFactory : inputFactory;
+    }
+
+    // ========================================================================================================================
+    // Internal
+    // ========================================================================================================================
+
+    private static SAXParserFactory createSaxFactory(boolean namespaceAware) {
+        SAXParserFactory factory = SAXParserFactory.newInstance();
+        factory.setValidating(false);
+        factory.setNamespaceAware(namespaceAware);
+        factory.setXIncludeAware(false);
+        setFeature(factory, "http://apache.org/xml/features/nonvalidating/load-external-dtd", false);
+        setFeature(factory, "http://xml.org/sax/features/external-general-entities", false);
+        setFeature(factory, "http://xml.org/sax/features/external-parameter-entities", false);
+        return factory;
+    }
+
+    private static void setFeature(SAXParserFactory factory, String feature, boolean value) {
+        try {
+            factory.setFeature(feature, value);
+        } catch (ParserConfigurationException | SAXException e) {
+            // not supported by the implementation; entities are still resolved to empty sources by the handlers
+        }
+    }
+
+    private static XMLInputFactory createInputFactory(boolean namespaceAware) {
+        XMLInputFactory factory = XMLInputFactory.newInstance();
+        factory.setProperty(XMLInputFactory.IS_NAMESPACE_AWARE, namespaceAware);
+        factory.setProperty(XMLInputFactory.IS_VALIDATING, false);
+        factory.setProperty(XMLInputFactory.SUPPORT_DTD, false);
+        factory.setProperty(XMLInputFactory.IS_SUPPORTING_EXTERNAL_ENTITIES, false);
+        return factory;
+    }
+}
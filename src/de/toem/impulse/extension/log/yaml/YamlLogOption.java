@@ -1,5 +1,6 @@
 package de.toem.impulse.extension.log.yaml;
 
+import de.toem.impulse.extension.log.common.SourcePlan;
 import de.toem.impulse.extension.log.i18n.I18n;
 import de.toem.impulse.usecase.logging.AbstractLogOption;
 import de.toem.toolkits.pattern.element.CellAnnotation;
@@ -90,6 +91,8 @@ public class YamlLogOption extends AbstractLogOption {
     @FieldAnnotation(affects = { FieldAnnotation.ALL_FIELDS })
     // Comma-separated list of value names to extract
     public String values;
+    // Plan of the source list (recreated when the list changes)
+    private transient SourcePlan sourcePlan;
 
     // source
     // Source index for first value
@@ -125,8 +128,8 @@ public class YamlLogOption extends AbstractLogOption {
      * @return true if the source number is valid
      */
     public boolean hasValidSource(int n) {
-        String[] splitted = values != null ? values.split(",") : null;
-        return splitted != null && splitted.length > (n - SOURCE_VALUE1) && n >= SOURCE_VALUE1 ? true : false;
+        SourcePlan plan = getSourcePlan();
+        return plan != null && plan.size() > (n - SOURCE_VALUE1) && n >= SOURCE_VALUE1;
     }
 
     /**
@@ -136,8 +139,8 @@ public class YamlLogOption extends AbstractLogOption {
      * @return the source identifier, or null if invalid
      */
     public String getSourceIdentifier(int n) {
-        String[] splitted = values != null ? values.split(",") : null;
-        return splitted != null && splitted.length > (n - SOURCE_VALUE1) && n >= SOURCE_VALUE1 ? splitted[n - SOURCE_VALUE1] : null;
+        SourcePlan plan = getSourcePlan();
+        return plan != null && n >= SOURCE_VALUE1 ? plan.get(n - SOURCE_VALUE1) : null;
     }
 
     /**
@@ -146,8 +149,23 @@ public class YamlLogOption extends AbstractLogOption {
      * @return the maximum source number
      */
     public int getMaxSource() {
-        String[] splitted = values != null ? values.split(",") : null;
-        return splitted != null ? splitted.length : 0;
+        SourcePlan plan = getSourcePlan();
+        return plan != null ? plan.size() : 0;
+    }
+
+    /**
+     * Returns the precompiled plan of the configured values.
+     *
+     * @return the plan, or null if no values are configured
+     */
+    public SourcePlan getSourcePlan() {
+        String list = values;
+        if (list == null)
+            return null;
+        SourcePlan plan = sourcePlan;
+        if (plan == null || !plan.isOf(list))
+            sourcePlan = plan = SourcePlan.of(list);
+        return plan;
     }
 
     // ========================================================================================================================
@@ -13,10 +13,13 @@ import com.fasterxml.jackson.core.JsonToken;
 import com.fasterxml.jackson.dataformat.yaml.YAMLFactory;
 import com.fasterxml.jackson.dataformat.yaml.YAMLParser;
 
+import de.toem.impulse.extension.log.common.AbstractPipelineLogReader;
+import de.toem.impulse.extension.log.common.LogRecordCache;
 import de.toem.impulse.extension.log.i18n.I18n;
 import de.toem.impulse.serializer.AbstractSingleDomainRecordReader;
 import de.toem.impulse.usecase.logging.AbstractLogOption;
 import de.toem.impulse.usecase.logging.AbstractLogReader;
+import de.toem.impulse.usecase.logging.Log;
 import de.toem.toolkits.core.Utils;
 import de.toem.toolkits.pattern.element.CellAnnotation;
 import de.toem.toolkits.pattern.element.ICell;
@@ -49,6 +52,8 @@ import de.toem.toolkits.utils.serializer.ParseException;
  * - Multi-domain timestamp support (primary and secondary domains)
  * - Configurable log entry naming and tagging
  * - Custom member field extraction from YAML object values
+ * - Optional record cache that replays the parsed messages of unchanged files instead of parsing
+ * - Optional reorder stage that writes slightly out-of-order messages in position order per signal
  *
  * YAML Structure Support:
  * The reader can process YAML files with arbitrary object structure, where log entries are identified
@@ -68,7 +73,7 @@ import de.toem.toolkits.utils.serializer.ParseException;
  * All rights reserved.
  *
  */
-public class YamlLogReader extends AbstractLogReader {
+public class YamlLogReader extends AbstractPipelineLogReader {
     public static class Annotation extends AbstractSingleDomainRecordReader.Annotation {
         public static final Class<? extends ICell> multiton = Preference.class;
         public static final String id = "reader.log.yaml";
@@ -113,7 +118,7 @@ public class YamlLogReader extends AbstractLogReader {
      */
     public YamlLogReader(ISerializerDescriptor descriptor, String contentName, String contentType, String cellType, String configuration,
             String[][] properties, InputStream in) {
-        super(descriptor, configuration, properties, getPropertyModel(descriptor, null), in);
+        super(descriptor, contentName, configuration, properties, getPropertyModel(descriptor, null), in);
     }
 
     // ========================================================================================================================
@@ -269,7 +274,14 @@ public class YamlLogReader extends AbstractLogReader {
      * @return the configured property model
      */
     static public PropertyModel getPropertyModel(ISerializerDescriptor descriptor, Object context) {
-        return AbstractLogReader.getPropertyModel(descriptor, context);
+        return AbstractLogReader.getPropertyModel(descriptor, context)
+                .add("nameInclude", "", null, null, null, "Include Names").add("nameExclude", "", null, null, null, "Exclude Names")
+                .add("messageTemplates", false, null, "Mine message templates")
+                .add("templateSimilarity", 50, null, null, null, "Template Similarity (%)")
+                .add("templateSignal", DEFAULT_TEMPLATE_SIGNAL, null, null, "Template Signal", null, null)
+                .add("cacheRecords", false, null, "Cache parsed records").add("recordCacheSize", 1024, null, null, null, "Record Cache Size (MB)")
+                .add("reorderWindow", 0, null, null, null, "Reorder Window (domain units)").add("reorderEntries", 0, null, null, null, "Reorder Entries")
+                .add("firstScreenMessages", 0, null, null, null, "First Screen (messages)").add("firstScreenSpan", 0, null, null, null, "First Screen Span (domain units)");
     }
 
     // ========================================================================================================================
@@ -315,14 +327,31 @@ public class YamlLogReader extends AbstractLogReader {
      * @throws IOException if an I/O error occurs during reading
      */
     @Override
-    protected void parseLogs(IProgress progress, InputStream in) throws ParseException, IOException {
+    protected void parseContent(IProgress progress, InputStream in) throws ParseException, IOException {
 
         YAMLFactory yfactory = new YAMLFactory();
         YAMLParser yamlReader = yfactory.createParser(new InputStreamReader(in, charSet));
         closable = yamlReader;
 
+        // message templates, name filter, reorder stage
+        initPipeline();
+
         // extract log data
         LogMessage message = new LogMessage();
+
+        // record cache
+        recordCache = openRecordCache();
+        if (recordCache != null && recordCache.isReplaying()) {
+            try {
+                if (!replayMessages(progress, message) && (progress == null || !progress.isCanceled()))
+                    throw new ParseException(-1, "Invalid record cache");
+                flushReorder();
+            } finally {
+                closeRecordCache(false);
+            }
+            return;
+        }
+
         Stack<YamlOptionParser> parserStack = new Stack<>();
         Stack<Map<String, String>> attributeStack = new Stack<>();
         Stack<String> pathStack = new Stack<>();
@@ -413,11 +442,36 @@ public class YamlLogReader extends AbstractLogReader {
                 }
                 nextToken = yamlReader.nextToken();
             }
+            flushReorder();
         } catch (Throwable e) {
+            closeRecordCache(false);
             if (e instanceof ParseException)
                 throw (ParseException) e;
             throw new ParseException("Could not parse YAML structure", e);
         }
+        closeRecordCache(progress == null || !progress.isCanceled());
+    }
+
+    /**
+     * Returns the value index of the {@link Log#MESSAGE} member of an option parser.
+     *
+     * @param parser the option parser
+     * @return the value index or -1 if none
+     */
+    @Override
+    protected int getMessageIndex(AbstractOptionParser parser) {
+        return ((YamlOptionParser) parser).messageIndex;
+    }
+
+    /**
+     * Returns the hash of the option configuration of a YAML option parser.
+     *
+     * @param parser the option parser
+     * @return the hash
+     */
+    @Override
+    protected long getOptionHash(AbstractOptionParser parser) {
+        return ((YamlOptionParser) parser).optionHash;
     }
 
     /**
@@ -461,6 +515,10 @@ public class YamlLogReader extends AbstractLogReader {
         protected String name2Value;
         // Value name for tag extraction
         protected String tagValue;
+        // Value index of the message member (-1 if none)
+        int messageIndex = -1;
+        // Hash of the option configuration (record cache key)
+        final long optionHash;
 
         /**
          * Constructs a YamlOptionParser with the specified YAML log option.
@@ -500,18 +558,24 @@ public class YamlLogReader extends AbstractLogReader {
                     String id = option.getSourceIdentifier(n);
                     sourceValues[n] = id;
                     if (n == domainSource)
-                        domainValue = option.getSourceIdentifier(n);
+                        domainValue = id;
                     if (n == domain2Source)
-                        domain2Value = option.getSourceIdentifier(n);
+                        domain2Value = id;
                     if (n == name1Source)
-                        name1Value = option.getSourceIdentifier(n);
+                        name1Value = id;
                     if (n == name2Source)
-                        name2Value = option.getSourceIdentifier(n);
+                        name2Value = id;
                     if (n == tagSource)
-                        tagValue = option.getSourceIdentifier(n);
+                        tagValue = id;
 
                 }
             }
+
+            // message member
+            for (int n = YamlLogOption.MEMBER_MIN; n <= YamlLogOption.MEMBER_MAX; n++)
+                if (memberIndex[n] >= 0 && Log.MESSAGE.equals(Utils.trim((String) option.getValue("member" + n, String.class))))
+                    messageIndex = memberIndex[n];
+            optionHash = LogRecordCache.hash(0, option);
         }
 
         /**
@@ -551,7 +615,7 @@ public class YamlLogReader extends AbstractLogReader {
                 return;
 
             if (action == AbstractLogOption.ACTION_START && !message.isEmpty()) {
-                write(message);
+                writeMessage(message);
                 message.clear();
             }
 
@@ -621,8 +685,9 @@ public class YamlLogReader extends AbstractLogReader {
                 changed |= true;
             }
 
+            boolean excluded = isExcluded(message);
             // members
-            for (int n = YamlLogOption.MEMBER_MIN; n <= YamlLogOption.MEMBER_MAX && n <= maxMemberSource; n++) {
+            for (int n = YamlLogOption.MEMBER_MIN; !excluded && n <= YamlLogOption.MEMBER_MAX && n <= maxMemberSource; n++) {
                 int widx = memberIndex[n];
                 if ((widx >= 0 || n == tagSource)) {
                     String name = sourceValues[n];
@@ -652,7 +717,7 @@ public class YamlLogReader extends AbstractLogReader {
                 message.setEmpty(false);
 
             if (action == AbstractLogOption.ACTION_TERMINATE && !message.isEmpty()) {
-                write(message);
+                writeMessage(message);
                 message.clear();
             }
         }
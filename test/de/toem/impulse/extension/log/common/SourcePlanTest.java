@@ -0,0 +1,66 @@
+package de.toem.impulse.extension.log.common;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+/**
+ * Tests of {@link SourcePlan}.
+ *
+ * The plan replaces the String.split(",") of the option accessors; source
+ * numbering must stay the same for all lists.
+ *
+ * Copyright (c) 2013-2025 Thomas Haber
+ * All rights reserved.
+ *
+ */
+public class SourcePlanTest {
+
+    // Lists with blanks, empty entries and trailing separators
+    private static final String[] LISTS = { "logger,timestamp,level", " logger , timestamp ,level ", "a", "", ",", "a,,b", "a,b,", ",a", " , ",
+            "level,level" };
+
+    @Test
+    public void numberingEqualsSplit() {
+        for (String list : LISTS) {
+            String[] expected = list.split(",");
+            SourcePlan plan = SourcePlan.of(list);
+            assertEquals(list, expected.length, plan.size());
+            for (int n = 0; n < expected.length; n++)
+                assertEquals(list, expected[n].trim(), plan.get(n));
+        }
+    }
+
+    @Test
+    public void outOfRange() {
+        SourcePlan plan = SourcePlan.of("a,b");
+        assertNull(plan.get(-1));
+        assertNull(plan.get(2));
+    }
+
+    @Test
+    public void identifiersAreInterned() {
+        SourcePlan plan = SourcePlan.of(new String("logger, level"));
+        assertSame("logger", plan.get(0));
+        assertSame("level", plan.get(1));
+    }
+
+    @Test
+    public void nullList() {
+        assertNull(SourcePlan.of(null));
+    }
+
+    @Test
+    public void isOf() {
+        String list = "a,b";
+        SourcePlan plan = SourcePlan.of(list);
+        assertTrue(plan.isOf(list));
+        assertTrue(plan.isOf(new String(list)));
+        assertFalse(plan.isOf("a,c"));
+        assertFalse(plan.isOf(null));
+    }
+}
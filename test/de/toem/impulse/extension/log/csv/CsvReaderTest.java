@@ -0,0 +1,79 @@
+package de.toem.impulse.extension.log.csv;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.fail;
+
+import org.junit.Test;
+
+/**
+ * Tests of the in-place number parsers of the CSV reader.
+ *
+ * The domain parsers replace the parsing of the cleaned domain text
+ * (Double.parseDouble with ',' as decimal separator and without blanks,
+ * Long.parseLong without separators); both must give the same values and
+ * reject the same input.
+ *
+ * Copyright (c) 2013-2025 Thomas Haber
+ * All rights reserved.
+ *
+ */
+public class CsvReaderTest {
+
+    // Float domain values for the fast path, the fallback and malformed input
+    private static final String[] FLOATS = { "0", "12", "-12", "+12", " 12 ", "1 000,5", "3.25", "3,25", "-0,001", ".5", "5.", "-0",
+            "123456789012345", "1234567890.12345", "1234567890123456", "0.1234567890123456", "1.5e3", "-2E-2", "NaN", "", " ", "-", ".", "1.2.3",
+            "1,000.5", "--1", "1-", "12x" };
+    // Integer domain values for the fast path, the fallback and malformed input
+    private static final String[] INTEGERS = { "0", "12", "-12", "+12", " 12 ", "12:30:45", "1.000.000", "1,5", "-0", "123456789012345678",
+            "1234567890123456789", "9223372036854775807", "-9223372036854775808", "9223372036854775808", "", " ", "-", "+", ":", "+-1", "1-",
+            "12x", "1e3" };
+
+    @Test
+    public void parseDoubleEqualsJdk() {
+        for (String text : FLOATS) {
+            Double expected;
+            try {
+                expected = Double.parseDouble(text.replace(",", ".").replace(" ", "").trim());
+            } catch (NumberFormatException e) {
+                expected = null;
+            }
+            Double actual;
+            try {
+                actual = CsvReader.parseDouble(text, text.length());
+            } catch (NumberFormatException e) {
+                actual = null;
+            }
+            assertEquals(text, expected, actual);
+        }
+    }
+
+    @Test
+    public void parseLongEqualsJdk() {
+        for (String text : INTEGERS) {
+            Long expected;
+            try {
+                expected = Long.parseLong(text.replaceAll("[\\.,: ]", "").trim());
+            } catch (NumberFormatException e) {
+                expected = null;
+            }
+            Long actual;
+            try {
+                actual = CsvReader.parseLong(text, text.length());
+            } catch (NumberFormatException e) {
+                actual = null;
+            }
+            assertEquals(text, expected, actual);
+        }
+    }
+
+    @Test
+    public void parseBeforeUnit() {
+        assertEquals(1.5, CsvReader.parseDouble("1.5 ms", 4), 0);
+        assertEquals(150L, CsvReader.parseLong("150ns", 3));
+        try {
+            CsvReader.parseLong("ms", 0);
+            fail();
+        } catch (NumberFormatException e) {
+        }
+    }
+}
@@ -0,0 +1,90 @@
+package de.toem.impulse.extension.log.pattern;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+import org.junit.Test;
+
+/**
+ * Tests of the numeric parsing of the pattern log reader.
+ *
+ * Numeric members are parsed directly from the capture ranges and extraction
+ * rules parse the numbers behind their keys; both must give the same values as
+ * Long.valueOf/Double.valueOf of the trimmed text.
+ *
+ * Copyright (c) 2013-2025 Thomas Haber
+ * All rights reserved.
+ *
+ */
+public class PatternLogReaderTest {
+
+    // Numbers for the fast path, the fallback and malformed input
+    private static final String[] NUMBERS = { "0", "-0", "-0.0", "7", "-7", "+7", "  42  ", "\t-13 ", "123456789012345", "-123456789012345", "1234567890123456",
+            "9223372036854775807", "-9223372036854775808", "9223372036854775808", "0.5", ".5", "-.5", "5.", "3.14159", "-2.718281828459045",
+            "0.000000000000001", "12345678.9012345", "1.5e3", "-1E-3", "NaN", "Infinity", "", " ", "-", "+", ".", "1.2.3", "1,5", "12a", "a12", "--1",
+            "1-" };
+
+    @Test
+    public void parseNumberEqualsValueOf() {
+        for (String number : NUMBERS) {
+            assertEquals(number, reference(number, false), PatternLogReader.parseNumber(number, 0, number.length(), false));
+            assertEquals(number, reference(number, true), PatternLogReader.parseNumber(number, 0, number.length(), true));
+        }
+    }
+
+    @Test
+    public void parseNumberInRange() {
+        String line = "[x] depth= 12.25 ms";
+        int start = line.indexOf('=') + 1;
+        int end = line.indexOf("ms");
+        assertEquals(Double.valueOf(12.25), PatternLogReader.parseNumber(line, start, end, true));
+        assertNull(PatternLogReader.parseNumber(line, start, end, false));
+        assertEquals(Long.valueOf(12), PatternLogReader.parseNumber(line, start, start + 3, false));
+    }
+
+    @Test
+    public void extractRuleWithKey() throws Exception {
+        PatternLogReader reader = new PatternLogReader();
+        PatternLogReader.ExtractRule integer = reader.new ExtractRule(PatternLogOption.MEMBER_MIN + ":depth=queue depth");
+        String line = "enqueue: queue depth = -17, free=3";
+        integer.extract(line, 0, line.length());
+        assertEquals(Long.valueOf(-17), integer.take());
+        assertNull(integer.take());
+        integer.extract(line, line.indexOf(','), line.length());
+        assertNull(integer.take());
+
+        PatternLogReader.ExtractRule fraction = reader.new ExtractRule(PatternLogOption.MEMBER_MIN + ":load:float=load:");
+        line = "cpu load: 0.75 avg";
+        fraction.extract(line, 0, line.length());
+        assertEquals(Double.valueOf(0.75), fraction.take());
+    }
+
+    @Test
+    public void extractRuleWithPattern() throws Exception {
+        PatternLogReader reader = new PatternLogReader();
+        PatternLogReader.ExtractRule rule = reader.new ExtractRule(PatternLogOption.MEMBER_MIN + ":latency:float=took (\\S+) ms");
+        String line = "request took 1.5e2 ms";
+        rule.extract(line, 0, line.length());
+        assertEquals(Double.valueOf(150), rule.take());
+        rule.extract(line, 0, line.indexOf("ms"));
+        assertNull(rule.take());
+
+        rule = reader.new ExtractRule(PatternLogOption.MEMBER_MIN + ":count:integer=n=(\\d+)");
+        line = "n=123456789012";
+        rule.extract(line, 0, line.length());
+        assertEquals(Long.valueOf(123456789012L), rule.take());
+    }
+
+    // ========================================================================================================================
+    // Internal
+    // ========================================================================================================================
+
+    private static Object reference(String number, boolean isFloat) {
+        try {
+            String trimmed = number.trim();
+            return isFloat ? (Object) Double.valueOf(trimmed) : (Object) Long.valueOf(trimmed);
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+}
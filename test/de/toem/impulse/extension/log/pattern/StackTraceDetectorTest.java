@@ -0,0 +1,67 @@
+package de.toem.impulse.extension.log.pattern;
+
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+/**
+ * Tests of {@link StackTraceDetector}.
+ *
+ * Lines of a trace must be classified as continuation lines, and the first
+ * line after a trace must not be, so the next log line starts a new message.
+ *
+ * Copyright (c) 2013-2025 Thomas Haber
+ * All rights reserved.
+ *
+ */
+public class StackTraceDetectorTest {
+
+    @Test
+    public void javaTrace() {
+        StackTraceDetector detector = new StackTraceDetector();
+        assertTrue(detector.isContinuation("java.lang.IllegalStateException: queue full"));
+        assertTrue(detector.isContinuation("\tat de.toem.Queue.add(Queue.java:12)"));
+        assertTrue(detector.isContinuation("Caused by: java.io.IOException"));
+        assertTrue(detector.isContinuation("\t... 3 more"));
+        assertFalse(detector.isContinuation("2025-01-01 12:00:00 INFO next"));
+        assertFalse(detector.isContinuation("Error: not qualified"));
+    }
+
+    @Test
+    public void pythonTracebackEndsAtExceptionLine() {
+        StackTraceDetector detector = new StackTraceDetector();
+        assertTrue(detector.isContinuation("Traceback (most recent call last):"));
+        assertTrue(detector.isContinuation("  File \"main.py\", line 3, in <module>"));
+        assertTrue(detector.isContinuation("    sys.exit(1)"));
+        assertTrue(detector.isContinuation("SystemExit: 1"));
+        assertFalse(detector.isContinuation("    indented text after the traceback"));
+        assertFalse(detector.isContinuation("WARNING next message"));
+    }
+
+    @Test
+    public void pythonChainedTracebacks() {
+        StackTraceDetector detector = new StackTraceDetector();
+        assertTrue(detector.isContinuation("Traceback (most recent call last):"));
+        assertTrue(detector.isContinuation("  File \"main.py\", line 3, in <module>"));
+        assertTrue(detector.isContinuation("KeyError: 'x'"));
+        assertTrue(detector.isContinuation("During handling of the above exception, another exception occurred:"));
+        assertTrue(detector.isContinuation("Traceback (most recent call last):"));
+        assertTrue(detector.isContinuation("  File \"main.py\", line 5, in <module>"));
+        assertTrue(detector.isContinuation("requests.exceptions.HTTPError: 404"));
+        assertTrue(detector.isContinuation("The above exception was the direct cause of the following exception:"));
+        assertFalse(detector.isContinuation("INFO next message"));
+        assertFalse(detector.isContinuation("During handling of the above exception, another exception occurred:"));
+    }
+
+    @Test
+    public void pythonTracebackWithoutExceptionLine() {
+        StackTraceDetector detector = new StackTraceDetector();
+        assertTrue(detector.isContinuation("Traceback (most recent call last):"));
+        assertTrue(detector.isContinuation("  File \"main.py\", line 3, in <module>"));
+        assertFalse(detector.isContinuation("2025-01-01 12:00:00 ERROR next"));
+        assertTrue(detector.isContinuation("Traceback (most recent call last):"));
+        detector.reset();
+        assertFalse(detector.isContinuation("    sys.exit(1)"));
+    }
+}
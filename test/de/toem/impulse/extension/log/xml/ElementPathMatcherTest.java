@@ -0,0 +1,107 @@
+package de.toem.impulse.extension.log.xml;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotEquals;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.Test;
+
+/**
+ * Tests of {@link ElementPathMatcher}.
+ *
+ * The automaton replaces the linear test of all options (element name and
+ * path.endsWith(parentPath)); for all element paths up to a given depth, it
+ * must return the same first matching option.
+ *
+ * Copyright (c) 2013-2025 Thomas Haber
+ * All rights reserved.
+ *
+ */
+public class ElementPathMatcherTest {
+
+    // Element names of the generated paths ("x" does not occur in any option)
+    private static final String[] ALPHABET = { "a", "b", "c", "x" };
+
+    @Test
+    public void equalsLinearMatching() {
+        check(new String[] { "c", null, "b", "a", "c" }, new String[] { "/a/b", "/b", null, "", "/a" });
+        check(new String[] { "a", "b", "b", null }, new String[] { "/a/a/a", "/a/b/a/b", "/b/a/b", "/c" });
+        check(new String[] { null, "a" }, new String[] { null, "/a" });
+        check(new String[] { "x1", "c" }, new String[] { "/x2", "/c/c" });
+        check(new String[0], new String[0]);
+    }
+
+    @Test
+    public void firstOptionWins() {
+        ElementPathMatcher matcher = new ElementPathMatcher(new String[] { null, "b" }, new String[] { "/a", "/a" });
+        int a = matcher.next(ElementPathMatcher.ROOT, matcher.symbol("a"));
+        assertEquals(0, matcher.match(a, matcher.symbol("b")));
+        matcher = new ElementPathMatcher(new String[] { "b", null }, new String[] { "/a", "/a" });
+        a = matcher.next(ElementPathMatcher.ROOT, matcher.symbol("a"));
+        assertEquals(0, matcher.match(a, matcher.symbol("b")));
+        assertEquals(1, matcher.match(a, matcher.symbol("c")));
+    }
+
+    @Test
+    public void unknownNamesShareOneSymbol() {
+        ElementPathMatcher matcher = new ElementPathMatcher(new String[] { "a" }, new String[] { null });
+        assertEquals(matcher.symbol("y"), matcher.symbol("z"));
+        assertNotEquals(matcher.symbol("a"), matcher.symbol("z"));
+    }
+
+    @Test
+    public void namespaceAwareSymbols() {
+        ElementPathMatcher matcher = new ElementPathMatcher(new String[] { "{http://jakarta.apache.org/log4j/}event", "record" },
+                new String[] { null, null });
+        String uri = "http://jakarta.apache.org/log4j/";
+        assertEquals("{" + uri + "}event", ElementPathMatcher.key(uri, "event"));
+        assertEquals("record", ElementPathMatcher.key(null, "record"));
+        assertEquals("record", ElementPathMatcher.key("", "record"));
+        assertEquals(matcher.symbol("{" + uri + "}event"), matcher.symbol(uri, "event"));
+        // repeated lookup through the identity cache
+        assertEquals(matcher.symbol("{" + uri + "}event"), matcher.symbol(uri, "event"));
+        assertEquals(matcher.symbol("record"), matcher.symbol(null, "record"));
+        assertEquals(matcher.symbol("unknown"), matcher.symbol(uri, "record"));
+    }
+
+    // ========================================================================================================================
+    // Internal
+    // ========================================================================================================================
+
+    /**
+     * Compares the matcher with the linear matching for all paths up to depth 5.
+     */
+    private static void check(String[] names, String[] parentPaths) {
+        ElementPathMatcher matcher = new ElementPathMatcher(names, parentPaths);
+        walk(matcher, names, parentPaths, new ArrayList<String>(), ElementPathMatcher.ROOT, 5);
+    }
+
+    private static void walk(ElementPathMatcher matcher, String[] names, String[] parentPaths, List<String> path, int state, int depth) {
+        if (depth == 0)
+            return;
+        for (String name : ALPHABET) {
+            int symbol = matcher.symbol(name);
+            String parentPath = toPath(path);
+            assertEquals(parentPath + "/" + name, linear(names, parentPaths, parentPath, name), matcher.match(state, symbol));
+            path.add(name);
+            walk(matcher, names, parentPaths, path, matcher.next(state, symbol), depth - 1);
+            path.remove(path.size() - 1);
+        }
+    }
+
+    private static int linear(String[] names, String[] parentPaths, String parentPath, String name) {
+        for (int n = 0; n < names.length; n++)
+            if ((names[n] == null || names[n].equals(name)) && (parentPaths[n] == null || parentPath.endsWith(parentPaths[n])))
+                return n;
+        return ElementPathMatcher.NO_MATCH;
+    }
+
+    private static String toPath(List<String> path) {
+        StringBuilder builder = new StringBuilder();
+        for (String name : path)
+            builder.append('/').append(name);
+        return builder.toString();
+    }
+}
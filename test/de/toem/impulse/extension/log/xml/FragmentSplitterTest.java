@@ -0,0 +1,170 @@
+package de.toem.impulse.extension.log.xml;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+import javax.xml.parsers.SAXParserFactory;
+
+import org.junit.Test;
+import org.xml.sax.Attributes;
+import org.xml.sax.helpers.DefaultHandler;
+
+/**
+ * Tests of {@link FragmentSplitter}.
+ *
+ * Every batch must end behind a complete top-level record, so that it can be
+ * parsed on its own when wrapped into a dummy element, and the batches must
+ * add up to the input.
+ *
+ * Copyright (c) 2013-2025 Thomas Haber
+ * All rights reserved.
+ *
+ */
+public class FragmentSplitterTest {
+
+    // Records with markup characters in quoted values, comments, CDATA sections and instructions
+    private static final String[] RECORDS = { //
+            "<log4j:event logger=\"a\" level=\"INFO\"><log4j:message>plain</log4j:message></log4j:event>\n",
+            "<log4j:event logger='q>uo\"ted' level=\"WARN\"><log4j:message>a &lt; b</log4j:message></log4j:event>\n",
+            "<log4j:event logger=\"c\" level=\"INFO\"><!-- </log4j:event> <x> --><log4j:message/></log4j:event>\n",
+            "<log4j:event logger=\"d\" level=\"ERROR\"><log4j:message><![CDATA[</log4j:event> ]] > <y>]]></log4j:message></log4j:event>\n",
+            "<log4j:event logger=\"e\" level=\"DEBUG\"><?pi </log4j:event> ?><log4j:message>pi</log4j:message></log4j:event>\n",
+            "<log4j:event logger=\"f\" level=\"INFO\"/>\n", //
+            "<!-- top-level comment <a> -->\n", //
+            "<log4j:event logger=\"g\" level=\"INFO\"><a><b><c/></b></a></log4j:event>\n" };
+
+    @Test
+    public void batchesEndAtRecordBoundaries() throws Exception {
+        byte[] input = input(200);
+        for (boolean slow : new boolean[] { false, true }) {
+            FragmentSplitter splitter = new FragmentSplitter(stream(input, slow), 1024);
+            ByteArrayOutputStream joined = new ByteArrayOutputStream();
+            int batches = 0;
+            int records = 0;
+            byte[] batch;
+            while ((batch = splitter.next()) != null) {
+                assertTrue(splitter.isComplete());
+                records += parse(batch);
+                joined.write(batch);
+                batches++;
+                assertEquals(joined.size(), splitter.getOffset());
+            }
+            assertTrue(batches > 1);
+            assertEquals(200 * 7, records);
+            assertArrayEquals(input, joined.toByteArray());
+        }
+    }
+
+    @Test
+    public void declarationWithInternalSubset() throws Exception {
+        String text = "<!DOCTYPE log [ <!ENTITY e \"</r>\"> ]>\n<r a=\"1\"><x/></r>\n<r a=\"2\"/>\n";
+        List<byte[]> batches = split(text.getBytes(StandardCharsets.UTF_8), false);
+        assertEquals(1, batches.size());
+        assertEquals(text, new String(batches.get(0), StandardCharsets.UTF_8));
+    }
+
+    @Test
+    public void incompleteLastRecord() throws Exception {
+        String complete = "<r a=\"1\"><m>one</m></r>\n<r a=\"2\"><m>two</m></r>";
+        String incomplete = "\n<r a=\"3\"><m>thr";
+        byte[] input = (complete + incomplete).getBytes(StandardCharsets.UTF_8);
+
+        // returned as last batch
+        FragmentSplitter splitter = new FragmentSplitter(new ByteArrayInputStream(input), 1024);
+        assertEquals(complete + incomplete, new String(splitter.next(), StandardCharsets.UTF_8));
+        assertFalse(splitter.isComplete());
+        assertNull(splitter.next());
+
+        // dropped when recovering (the batch ends behind the last complete record)
+        splitter = new FragmentSplitter(new ByteArrayInputStream(input), 1024, true);
+        assertEquals(complete, new String(splitter.next(), StandardCharsets.UTF_8));
+        assertEquals(complete.length(), splitter.getOffset());
+        assertNull(splitter.next());
+    }
+
+    @Test
+    public void trailingWhiteSpace() throws Exception {
+        FragmentSplitter splitter = new FragmentSplitter(new ByteArrayInputStream("<r/>\n \t\n".getBytes(StandardCharsets.UTF_8)), 1024);
+        assertEquals("<r/>\n \t\n", new String(splitter.next(), StandardCharsets.UTF_8));
+        assertTrue(splitter.isComplete());
+        assertNull(splitter.next());
+    }
+
+    @Test
+    public void emptyInput() throws Exception {
+        assertNull(new FragmentSplitter(new ByteArrayInputStream(new byte[0]), 1024).next());
+    }
+
+    // ========================================================================================================================
+    // Internal
+    // ========================================================================================================================
+
+    private static byte[] input(int repeat) {
+        StringBuilder builder = new StringBuilder();
+        for (int n = 0; n < repeat; n++)
+            for (String record : RECORDS)
+                builder.append(record);
+        return builder.toString().getBytes(StandardCharsets.UTF_8);
+    }
+
+    private static List<byte[]> split(byte[] input, boolean recover) throws IOException {
+        FragmentSplitter splitter = new FragmentSplitter(new ByteArrayInputStream(input), 1024, recover);
+        List<byte[]> batches = new ArrayList<>();
+        byte[] batch;
+        while ((batch = splitter.next()) != null)
+            batches.add(batch);
+        return batches;
+    }
+
+    /**
+     * Parses a batch wrapped into a dummy element; returns the number of top-level records.
+     */
+    private static int parse(byte[] batch) throws Exception {
+        ByteArrayOutputStream wrapped = new ByteArrayOutputStream();
+        wrapped.write("<dummy xmlns:log4j=\"http://jakarta.apache.org/log4j/\">".getBytes(StandardCharsets.UTF_8));
+        wrapped.write(batch);
+        wrapped.write("</dummy>".getBytes(StandardCharsets.UTF_8));
+        int[] records = new int[1];
+        SAXParserFactory.newInstance().newSAXParser().parse(new ByteArrayInputStream(wrapped.toByteArray()), new DefaultHandler() {
+            int depth;
+
+            @Override
+            public void startElement(String uri, String localName, String qName, Attributes attributes) {
+                if (depth++ == 1)
+                    records[0]++;
+            }
+
+            @Override
+            public void endElement(String uri, String localName, String qName) {
+                depth--;
+            }
+        });
+        return records[0];
+    }
+
+    /**
+     * Returns a stream of the input; a slow stream returns one byte per read, so the
+     * scanner state has to survive every possible buffer boundary.
+     */
+    private static InputStream stream(byte[] input, boolean slow) {
+        if (!slow)
+            return new ByteArrayInputStream(input);
+        return new ByteArrayInputStream(input) {
+            @Override
+            public synchronized int read(byte[] b, int off, int len) {
+                return super.read(b, off, Math.min(1, len));
+            }
+        };
+    }
+}